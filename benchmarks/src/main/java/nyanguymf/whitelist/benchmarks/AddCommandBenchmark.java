@@ -0,0 +1,123 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+import nyanguymf.whitelist.core.KnownPlayersIndex;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.commands.WhitelistCommand;
+import nyanguymf.whitelist.core.db.UnknownPlayersWriter;
+
+/**
+ * Measures throughput of <tt>/wh add «player» 1d</tt> and
+ * of adding whole roster with one command.
+ * <p>
+ * Players are picked from server's offline players, so
+ * command both creates new rows and updates existing ones.
+ * Command does its work on command executor, so every
+ * operation waits for reply message.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class AddCommandBenchmark {
+    private static final int ROSTER_SIZE = 40;
+
+    @Param({"1000", "100000"})
+    private int offlinePlayers;
+
+    private WhitelistCommand command;
+    private CommandSender sender;
+    private Semaphore replies;
+
+    @Setup(Level.Trial) public void setUp() throws Exception {
+        BenchmarkPlugin plugin = BenchmarkServer.plugin();
+        DatabaseManager database = BenchmarkDatabase.open(plugin);
+
+        BenchmarkServer.setOfflinePlayers(offlinePlayers);
+        KnownPlayersIndex knownPlayers = new KnownPlayersIndex();
+        knownPlayers.load();
+
+        command = new WhitelistCommand(
+            MessagesManager.getInstance(plugin.getDataFolder(), "en"), plugin,
+            new UnknownPlayersWriter(500, 10_000), database, knownPlayers, plugin
+        );
+        replies = new Semaphore(0);
+        sender = BenchmarkServer.sender(replies::release);
+    }
+
+    @TearDown(Level.Trial) public void tearDown() {
+        command.close();
+    }
+
+    @Benchmark public boolean add() throws InterruptedException {
+        String name = "player" + ThreadLocalRandom.current().nextInt(offlinePlayers);
+
+        return execute("add", name, "1d");
+    }
+
+    /** Adds roster of {@value #ROSTER_SIZE} players with single command. */
+    @Benchmark public boolean addRoster() throws InterruptedException {
+        StringBuilder roster = new StringBuilder();
+
+        for (int i = 0; i < ROSTER_SIZE; i++) {
+            if (i != 0) {
+                roster.append(',');
+            }
+            roster.append("player").append(ThreadLocalRandom.current().nextInt(offlinePlayers));
+        }
+
+        return execute("add", roster.toString(), "1d");
+    }
+
+    /** Executes command and waits for its reply. */
+    private boolean execute(final String...args) throws InterruptedException {
+        boolean isExecuted = command.onCommand(sender, null, "wh", args);
+        replies.acquire();
+        return isExecuted;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.plugin.Plugin;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+
+import nyanguymf.whitelist.commons.db.DatabaseConfiguration;
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+import nyanguymf.whitelist.core.db.DatabaseManagerFactory;
+import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+
+/**
+ * Embedded H2 database for benchmarks.
+ * <p>
+ * Database is opened the same way as plug-in does it,
+ * with connection pool enabled, but without config file.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class BenchmarkDatabase {
+    private static final int BATCH_SIZE = 10_000;
+    private static DatabaseManager database;
+
+    private BenchmarkDatabase() {}
+
+    /**
+     * Connects to database in plug-in data folder and
+     * initializes {@link WhitelistedPlayer} DAO.
+     *
+     * @param   plugin  Plug-in which data folder to use.
+     * @return connected database manager.
+     * @throws SQLException if unable to connect.
+     */
+    public static synchronized DatabaseManager open(final Plugin plugin) throws SQLException {
+        if (BenchmarkDatabase.database != null)
+            return BenchmarkDatabase.database;
+
+        // ORMLite logs every statement by default
+        System.setProperty("com.j256.ormlite.logger.level", "ERROR");
+
+        DatabaseManager database = new DatabaseManager(
+            plugin, new H2Configuration(plugin.getDataFolder())
+        );
+
+        if (!database.connect())
+            throw new SQLException("Unable to connect to database: " + database.getStatus());
+
+        if (!DatabaseManagerFactory.initDaos(database))
+            throw new SQLException("Unable to initialize players table");
+
+        return BenchmarkDatabase.database = database;
+    }
+
+    /** @return DAO of players, it's the one plug-in uses. */
+    private static Dao<WhitelistedPlayer, UUID> players() throws SQLException {
+        // DAOs are cached by connection source and class
+        return DaoManager.createDao(database.getConnection(), WhitelistedPlayer.class);
+    }
+
+    /**
+     * Inserts players named <tt>prefix0</tt>, <tt>prefix1</tt>,
+     * etc. with their offline ids by batches.
+     *
+     * @param   prefix      Prefix of players names.
+     * @param   amount      Amount of players to insert.
+     * @param   until       Whitelist expiration time in epoch millis, 0 for none.
+     * @param   blockEvery  Every n-th player isn't whitelisted, 0 for none.
+     * @return amount of inserted rows.
+     */
+    public static int insertPlayers(
+        final String prefix, final int amount, final long until, final int blockEvery
+    ) throws SQLException {
+        Dao<WhitelistedPlayer, UUID> dao = players();
+        List<WhitelistedPlayer> batch = new ArrayList<>(BATCH_SIZE);
+        int inserted = 0;
+
+        for (int index = 0; index < amount; index++) {
+            String name = prefix + index;
+            WhitelistedPlayer player = new WhitelistedPlayer(
+                WhitelistedPlayer.offlineId(name), name, until
+            );
+            player.setWhitelisted((blockEvery == 0) || (index % blockEvery != 0));
+            batch.add(player);
+
+            if ((batch.size() == BATCH_SIZE) || (index == amount - 1)) {
+                inserted += dao.create(batch);
+                batch.clear();
+            }
+        }
+
+        return inserted;
+    }
+
+    /**
+     * Whitelists again all players with given name prefix.
+     *
+     * @param   prefix  Prefix of players names.
+     * @param   until   Whitelist expiration time in epoch millis.
+     * @return amount of updated rows.
+     */
+    public static int rewhitelist(final String prefix, final long until) throws SQLException {
+        return players().executeRaw(
+            "UPDATE `players` SET `is_whitelisted` = TRUE, `until` = CAST(? AS BIGINT)"
+            + " WHERE `name` LIKE CONCAT(?, '%')",
+            String.valueOf(until), prefix
+        );
+    }
+
+    private static final class H2Configuration implements DatabaseConfiguration {
+        private File folder;
+
+        H2Configuration(final File folder) {
+            this.folder = folder;
+        }
+
+        @Override public String getDriverName() {
+            return "h2";
+        }
+
+        @Override public String getUsername() {
+            return "sa";
+        }
+
+        @Override public String getPassword() {
+            return "";
+        }
+
+        @Override public String getDatabaseName() {
+            return "benchmark";
+        }
+
+        @Override public String getHost() {
+            return folder.getAbsolutePath();
+        }
+
+        @Override public int getPort() {
+            return 0;
+        }
+
+        @Override public boolean isPoolEnabled() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.io.File;
+
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import nyanguymf.whitelist.core.WhitelistManager;
+
+/**
+ * Plug-in instance which isn't loaded by server.
+ * <p>
+ * Whitelist is always enabled, because disabled whitelist
+ * skips everything worth measuring.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class BenchmarkPlugin extends JavaPlugin implements WhitelistManager {
+    BenchmarkPlugin(final JavaPluginLoader loader, final File dataFolder) {
+        super(
+            loader,
+            new PluginDescriptionFile("TemporalWhitelist", "benchmark", BenchmarkPlugin.class.getName()),
+            dataFolder,
+            new File(dataFolder, "TemporalWhitelist.jar")
+        );
+    }
+
+    @Override public boolean enable() {
+        return false;
+    }
+
+    @Override public boolean disable() {
+        return false;
+    }
+
+    @Override public boolean isWhitelistEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs JMH with results exported as JSON.
+ * <p>
+ * All arguments are passed to JMH as is, so
+ * <tt>java -jar benchmarks.jar Login -p rows=1000</tt>
+ * works as usual. If result format or file isn't given,
+ * results are written to <tt>jmh-result.json</tt>.
+ * <p>
+ * On Java 9+ forks are allowed to use reflection on
+ * <tt>java.net</tt>, which driver class loader needs.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class BenchmarkRunner {
+    public static void main(final String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add("json");
+        }
+        if (!jmhArgs.contains("-rff")) {
+            jmhArgs.add("-rff");
+            jmhArgs.add("jmh-result.json");
+        }
+
+        if (!jmhArgs.contains("-jvmArgsAppend") && !isJava8()) {
+            jmhArgs.add("-jvmArgsAppend");
+            jmhArgs.add("--add-opens=java.base/java.net=ALL-UNNAMED");
+        }
+
+        Main.main(jmhArgs.toArray(new String[0]));
+    }
+
+    private static boolean isJava8() {
+        return System.getProperty("java.specification.version").startsWith("1.");
+    }
+}
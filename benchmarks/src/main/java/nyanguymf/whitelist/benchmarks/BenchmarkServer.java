@@ -0,0 +1,208 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitScheduler;
+
+/**
+ * Stubbed Bukkit server for benchmarks.
+ * <p>
+ * Server does nothing except answering offline players
+ * and logging, scheduled tasks are run in calling thread. Each JMH fork gets its own server with
+ * plug-in data folder in temporary directory, which is
+ * deleted on exit.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class BenchmarkServer {
+    private static final Logger LOGGER = Logger.getLogger("BenchmarkServer");
+    private static volatile OfflinePlayer[] offlinePlayers = new OfflinePlayer[0];
+    private static BenchmarkPlugin plugin;
+
+    private BenchmarkServer() {}
+
+    /** Gets plug-in instance, installs server on first call. */
+    public static synchronized BenchmarkPlugin plugin() {
+        if (BenchmarkServer.plugin != null)
+            return BenchmarkServer.plugin;
+
+        Path dataFolder;
+        try {
+            dataFolder = Files.createTempDirectory("temporal-whitelist-benchmark");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> delete(dataFolder)));
+
+        Server server = Stubs.stub(Server.class, BenchmarkServer::answer);
+        Bukkit.setServer(server);
+
+        BenchmarkServer.plugin = new BenchmarkPlugin(pluginLoader(server), dataFolder.toFile());
+
+        return BenchmarkServer.plugin;
+    }
+
+    /**
+     * Creates plug-in loader the way {@code SimplePluginManager.registerInterface}
+     * does it, public constructor of loader is deprecated.
+     */
+    private static JavaPluginLoader pluginLoader(final Server server) {
+        try {
+            return JavaPluginLoader.class.getConstructor(Server.class).newInstance(server);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Unable to create plug-in loader", ex);
+        }
+    }
+
+    /**
+     * Sets players which server knows about.
+     * <p>
+     * Players are named <tt>player0</tt>, <tt>player1</tt>, etc.
+     *
+     * @param   amount  Amount of offline players.
+     */
+    public static void setOfflinePlayers(final int amount) {
+        OfflinePlayer[] players = new OfflinePlayer[amount];
+
+        for (int index = 0; index < amount; index++) {
+            String name = "player" + index;
+            UUID uuid = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+            players[index] = Stubs.stub(OfflinePlayer.class, (method, args) -> {
+                switch (method) {
+                case "getName":
+                    return name;
+                case "getUniqueId":
+                    return uuid;
+                default:
+                    return null;
+                }
+            });
+        }
+
+        BenchmarkServer.offlinePlayers = players;
+    }
+
+    /** Creates online player with given name and id. */
+    public static Player player(final String name, final UUID uuid) {
+        return Stubs.stub(Player.class, (method, args) -> {
+            switch (method) {
+            case "getName":
+                return name;
+            case "getUniqueId":
+                return uuid;
+            case "isOnline":
+                return true;
+            default:
+                return null;
+            }
+        });
+    }
+
+    /** Creates sender which has all permissions and ignores messages. */
+    public static CommandSender sender() {
+        return sender(() -> {});
+    }
+
+    /**
+     * Creates sender which has all permissions and runs
+     * given action for every message sent to it.
+     */
+    public static CommandSender sender(final Runnable onMessage) {
+        return Stubs.stub(CommandSender.class, (method, args) -> {
+            switch (method) {
+            case "hasPermission":
+            case "isOp":
+                return true;
+            case "getName":
+                return "BenchmarkSender";
+            case "sendMessage":
+                onMessage.run();
+                return null;
+            default:
+                return null;
+            }
+        });
+    }
+
+    private static Object answer(final String method, final Object[] args) {
+        switch (method) {
+        case "getName":
+        case "getVersion":
+        case "getBukkitVersion":
+            return "BenchmarkServer";
+        case "getLogger":
+            return BenchmarkServer.LOGGER;
+        case "getOfflinePlayers":
+            return BenchmarkServer.offlinePlayers.clone();
+        case "getOnlinePlayers":
+            return Collections.emptyList();
+        case "getPluginManager":
+            return Stubs.stub(PluginManager.class, (name, arguments) -> null);
+        case "getScheduler":
+            return Stubs.stub(BukkitScheduler.class, BenchmarkServer::runInline);
+        case "getConsoleSender":
+            return Stubs.stub(ConsoleCommandSender.class, (name, arguments) -> null);
+        case "isPrimaryThread":
+            return true;
+        default:
+            return null;
+        }
+    }
+
+    /** Runs every scheduled task right away in calling thread. */
+    private static Object runInline(final String method, final Object[] args) {
+        if ((args != null) && (args.length > 1) && (args[1] instanceof Runnable)) {
+            ((Runnable) args[1]).run();
+        }
+
+        return null;
+    }
+
+    private static void delete(final Path folder) {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException ex) {
+            System.err.printf("Unable to delete %s: %s\n", folder, ex.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nyanguymf.whitelist.commons.commands.Arguments;
+import nyanguymf.whitelist.commons.commands.CommandManager;
+import nyanguymf.whitelist.commons.commands.SubCommand;
+
+/**
+ * Measures dispatch of sub command by alias of the
+ * last added sub command.
+ * <p>
+ * Sub commands do nothing, so only lookup and argument
+ * handling of {@link CommandManager} is measured.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class CommandDispatchBenchmark {
+    private static final int ALIASES = 3;
+
+    @Param({"8", "64", "512"})
+    private int subCommands;
+
+    private CommandManager manager;
+    private CommandSender sender;
+    private String[] args;
+
+    @Setup(Level.Trial) public void setUp() {
+        manager = new CommandManager("benchmark", "usage") {};
+
+        for (int number = 0; number < subCommands; number++) {
+            String[] aliases = new String[ALIASES];
+
+            for (int alias = 0; alias < ALIASES; alias++) {
+                aliases[alias] = "alias" + number + "-" + alias;
+            }
+            manager.addSub(new NoOpCommand("command" + number, aliases));
+        }
+
+        sender = BenchmarkServer.sender();
+        args = new String[] {"ALIAS" + (subCommands - 1) + "-" + (ALIASES - 1), "player", "1d"};
+    }
+
+    @TearDown(Level.Trial) public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark public boolean dispatch() {
+        return manager.onCommand(sender, null, "benchmark", args);
+    }
+
+    private static final class NoOpCommand extends SubCommand {
+        private NoOpCommand(final String name, final String[] aliases) {
+            super(name, "benchmark." + name, "usage", aliases);
+        }
+
+        @Override public boolean execute(
+            final CommandSender sender, final String alias, final Arguments args
+        ) {
+            return args.length() == 2;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nyanguymf.whitelist.commons.scheduler.TimingWheel;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+
+/**
+ * Measures expiry sweep.
+ * <p>
+ * Whitelist of every 10th player is expired. Each iteration
+ * expires them once, so expired players are whitelisted
+ * again before every iteration.
+ * <p>
+ * {@link #databaseSweep()} is periodical sweep, which revokes
+ * all expired players with single update.
+ * {@link #wheelSweep()} is timing wheel draining whole hour
+ * of deadlines at once, which is worst case of precise
+ * expiry, ex. after server lag.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=5)
+@Measurement(iterations=20)
+@Fork(1)
+public class ExpirySweepBenchmark {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private TimingWheel<String> wheel;
+    private long wheelStart;
+
+    @Setup(Level.Trial) public void setUp() throws Exception {
+        BenchmarkDatabase.open(BenchmarkServer.plugin());
+
+        int expired = rows / 10;
+        BenchmarkDatabase.insertPlayers("expired", expired, System.currentTimeMillis() - HOUR, 0);
+        BenchmarkDatabase.insertPlayers(
+            "player", rows - expired, System.currentTimeMillis() + TimeUnit.DAYS.toMillis(30), 0
+        );
+    }
+
+    @Setup(Level.Iteration) public void rearm() throws Exception {
+        BenchmarkDatabase.rewhitelist("expired", System.currentTimeMillis() - HOUR);
+
+        if (!WhitelistIndex.load())
+            throw new IllegalStateException("Unable to load whitelist index.");
+
+        wheelStart = System.currentTimeMillis();
+        wheel = new TimingWheel<>(1_000, wheelStart);
+        for (int index = 0; index < rows; index++) {
+            wheel.schedule("player" + index, wheelStart + (index % 3_600) * 1_000L);
+        }
+    }
+
+    @Benchmark public int databaseSweep() {
+        return WhitelistedPlayer.revokeExpired(new Date());
+    }
+
+    @Benchmark public List<String> wheelSweep() {
+        return wheel.advance(wheelStart + HOUR);
+    }
+}
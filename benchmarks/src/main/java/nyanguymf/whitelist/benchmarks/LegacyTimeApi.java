@@ -0,0 +1,143 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Copy of TimeAPI parser before it became single-pass,
+ * kept as baseline for {@link TimeApiBenchmark}.
+ * <p>
+ * <a href="https://github.com/okx-code/Rankup3">Original source and copyrighter<a>
+ *
+ * @author okx-code
+ */
+final class LegacyTimeApi {
+    private static final long DAYS_IN_WEEK = 7;
+    private static final long DAYS_IN_MONTH = 30;
+    private static final long DAYS_IN_YEAR = 365;
+
+    private long seconds;
+
+    LegacyTimeApi reparse(final String time) {
+        seconds = 0;
+
+        Scanner scanner = new Scanner(time
+                .replace(" ", "")
+                .replace("and", "")
+                .replace(",", "")
+                .toLowerCase());
+
+        long next;
+        while(scanner.hasNext()) {
+            next = scanner.nextLong();
+            switch(scanner.nextString()) {
+                case "s":
+                case "sec":
+                case "secs":
+                case "second":
+                case "seconds":
+                    seconds += next;
+                    break;
+                case "m":
+                case "min":
+                case "mins":
+                case "minute":
+                case "minutes":
+                    seconds += TimeUnit.MINUTES.toSeconds(next);
+                    break;
+                case "h":
+                case "hr":
+                case "hrs":
+                case "hour":
+                case "hours":
+                    seconds += TimeUnit.HOURS.toSeconds(next);
+                    break;
+                case "d":
+                case "dy":
+                case "dys":
+                case "day":
+                case "days":
+                    seconds += TimeUnit.DAYS.toSeconds(next);
+                    break;
+                case "w":
+                case "week":
+                case "weeks":
+                    seconds += TimeUnit.DAYS.toSeconds(next * LegacyTimeApi.DAYS_IN_WEEK);
+                    break;
+                case "mo":
+                case "mon":
+                case "mnth":
+                case "month":
+                case "months":
+                    seconds += TimeUnit.DAYS.toSeconds(next * LegacyTimeApi.DAYS_IN_MONTH);
+                    break;
+                case "y":
+                case "yr":
+                case "yrs":
+                case "year":
+                case "years":
+                    seconds += TimeUnit.DAYS.toSeconds(next * LegacyTimeApi.DAYS_IN_YEAR);
+                    break;
+                default:
+                    throw new IllegalArgumentException();
+            }
+        }
+        return this;
+    }
+
+    long getSeconds() {
+        return seconds;
+    }
+
+    private static final class Scanner {
+        private char[] time;
+        private int index = 0;
+
+        Scanner(final String time) {
+            this.time = time.toCharArray();
+        }
+
+        boolean hasNext() {
+            return index < time.length-1;
+        }
+
+        long nextLong() {
+            return Long.parseLong(String.valueOf(next(Character::isDigit)));
+        }
+
+        String nextString() {
+            return String.valueOf(next(Character::isAlphabetic));
+        }
+
+        private char[] next(final Predicate<Character> whichSatisfies) {
+            int startIndex = index;
+            while(++index < time.length && whichSatisfies.test(time[index])) {
+
+            }
+            return Arrays.copyOfRange(time, startIndex, index);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.net.InetAddress;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.db.UnknownPlayersWriter;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+import nyanguymf.whitelist.core.events.PlayerJoinHandler;
+
+/**
+ * Measures latency of login verdict.
+ * <p>
+ * Each operation is asynchronous pre-login followed by
+ * login of the same player, as server does it. Every 4th
+ * player isn't whitelisted and every 2nd one is whitelisted
+ * temporarily. Verdict is resolved either from whitelist
+ * index or, if it isn't loaded, from database.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class LoginVerdictBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"index", "database"})
+    private String source;
+
+    private PlayerJoinHandler handler;
+    private InetAddress address;
+    private String[] names;
+    private UUID[] ids;
+
+    @Setup(Level.Trial) public void setUp() throws Exception {
+        BenchmarkPlugin plugin = BenchmarkServer.plugin();
+
+        DatabaseManager database = BenchmarkDatabase.open(plugin);
+        BenchmarkDatabase.insertPlayers("player", rows / 2, 0, 4);
+        BenchmarkDatabase.insertPlayers(
+            "temporal", rows - (rows / 2), System.currentTimeMillis() + TimeUnit.DAYS.toMillis(30), 4
+        );
+
+        if (source.equals("index") && !WhitelistIndex.load())
+            throw new IllegalStateException("Unable to load whitelist index.");
+
+        handler = new PlayerJoinHandler(
+            MessagesManager.getInstance(plugin.getDataFolder(), "en"), plugin,
+            new UnknownPlayersWriter(500, 10_000), database
+        );
+        handler.register(plugin);
+        address = InetAddress.getLoopbackAddress();
+
+        names = new String[rows];
+        ids = new UUID[rows];
+        for (int number = 0; number < rows; number++) {
+            names[number] = (number % 2 == 0)
+                    ? "player" + (number / 2)
+                    : "temporal" + (number / 2);
+            ids[number] = WhitelistedPlayer.offlineId(names[number]);
+        }
+    }
+
+    @TearDown(Level.Trial) public void tearDown() {
+        handler.close();
+    }
+
+    @Benchmark public PlayerLoginEvent.Result login() {
+        int number = ThreadLocalRandom.current().nextInt(rows);
+        String name = names[number];
+
+        AsyncPlayerPreLoginEvent preLoginEvent = new AsyncPlayerPreLoginEvent(
+            name, address, ids[number]
+        );
+        handler.onPreLogin(preLoginEvent);
+
+        if (preLoginEvent.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED)
+            return PlayerLoginEvent.Result.KICK_WHITELIST;
+
+        PlayerLoginEvent loginEvent = new PlayerLoginEvent(
+            BenchmarkServer.player(name, ids[number]), "localhost", address
+        );
+        handler.onJoin(loginEvent);
+
+        return loginEvent.getResult();
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+
+/**
+ * Measures check of online players when whitelist is enabled
+ * and whitelist index isn't loaded.
+ * <p>
+ * {@link #queryEach()} is query per player, which blocked main
+ * thread before. {@link #queryAll()} is single query, which is
+ * now done off the main thread.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class OnlineCheckBenchmark {
+    @Param({"500"})
+    private int online;
+
+    private List<UUID> onlineIds;
+
+    @Setup public void setUp() throws Exception {
+        BenchmarkDatabase.open(BenchmarkServer.plugin());
+        BenchmarkDatabase.insertPlayers("player", 100_000, 0, 10);
+
+        onlineIds = new ArrayList<>(online);
+        for (int index = 0; index < online; index++) {
+            // every other online player has no record
+            String name = (index % 2 == 0) ? ("player" + index * 100) : ("guest" + index);
+            onlineIds.add(WhitelistedPlayer.offlineId(name));
+        }
+    }
+
+    @Benchmark public int queryEach() throws Exception {
+        int found = 0;
+        for (UUID uuid : onlineIds) {
+            if (WhitelistedPlayer.findById(uuid) != null) {
+                found++;
+            }
+        }
+
+        return found;
+    }
+
+    @Benchmark public int queryAll() throws Exception {
+        return WhitelistedPlayer.findByIds(onlineIds).size();
+    }
+}
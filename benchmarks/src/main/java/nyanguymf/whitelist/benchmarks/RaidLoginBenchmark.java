@@ -0,0 +1,116 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.net.InetAddress;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.db.UnknownPlayersWriter;
+import nyanguymf.whitelist.core.db.WhitelistFilter;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+import nyanguymf.whitelist.core.events.PlayerJoinHandler;
+
+/**
+ * Measures pre-login latency of players who were never
+ * whitelisted, as during bot raids.
+ * <p>
+ * Every name is new, so verdict can't come from any cache.
+ * It's resolved either by whitelist filter or, if filter
+ * isn't loaded, by whitelist index or database.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class RaidLoginBenchmark {
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"index", "database"})
+    private String source;
+
+    @Param({"true", "false"})
+    private boolean filter;
+
+    private PlayerJoinHandler handler;
+    private InetAddress address;
+
+    @Setup(Level.Trial) public void setUp() throws Exception {
+        BenchmarkPlugin plugin = BenchmarkServer.plugin();
+
+        DatabaseManager database = BenchmarkDatabase.open(plugin);
+        BenchmarkDatabase.insertPlayers("player", rows, 0, 4);
+
+        if (source.equals("index") && !WhitelistIndex.load())
+            throw new IllegalStateException("Unable to load whitelist index.");
+
+        if (filter && !WhitelistFilter.load(0.01, 0, 0))
+            throw new IllegalStateException("Unable to load whitelist filter.");
+
+        handler = new PlayerJoinHandler(
+            MessagesManager.getInstance(plugin.getDataFolder(), "en"), plugin,
+            new UnknownPlayersWriter(500, 10_000), database
+        );
+        handler.register(plugin);
+        address = InetAddress.getLoopbackAddress();
+    }
+
+    @TearDown(Level.Trial) public void tearDown() {
+        handler.close();
+    }
+
+    @Benchmark public AsyncPlayerPreLoginEvent.Result preLogin() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String name = "raider" + random.nextInt(Integer.MAX_VALUE);
+
+        AsyncPlayerPreLoginEvent event = new AsyncPlayerPreLoginEvent(
+            name, address, new UUID(random.nextLong(), random.nextLong())
+        );
+        handler.onPreLogin(event);
+
+        return event.getLoginResult();
+    }
+}
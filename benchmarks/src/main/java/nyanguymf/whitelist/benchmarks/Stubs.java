@@ -0,0 +1,91 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Creates stubs of Bukkit interfaces.
+ * <p>
+ * Methods which aren't answered return <tt>null</tt>,
+ * <tt>false</tt> or zero.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class Stubs {
+    private Stubs() {}
+
+    /** Answers stub method call, returns <tt>null</tt> for default value. */
+    @FunctionalInterface
+    interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    static <T> T stub(final Class<T> type, final Answer answer) {
+        Object stub = Proxy.newProxyInstance(
+            type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+                if (method.getDeclaringClass() == Object.class)
+                    return objectMethod(proxy, method, args);
+
+                Object result = answer.answer(method.getName(), args);
+
+                return (result == null) ? defaultValue(method.getReturnType()) : result;
+            }
+        );
+
+        return type.cast(stub);
+    }
+
+    private static Object objectMethod(final Object proxy, final Method method, final Object[] args) {
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        default:
+            return "Stub@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+    }
+
+    private static Object defaultValue(final Class<?> type) {
+        if (!type.isPrimitive() || (type == void.class))
+            return null;
+        if (type == boolean.class)
+            return false;
+        if (type == char.class)
+            return '\0';
+        if (type == float.class)
+            return 0F;
+        if (type == double.class)
+            return 0D;
+        if (type == long.class)
+            return 0L;
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == short.class)
+            return (short) 0;
+
+        return 0;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+import nyanguymf.whitelist.core.KnownPlayersIndex;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.commands.WhitelistCommand;
+import nyanguymf.whitelist.core.db.UnknownPlayersWriter;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+
+/**
+ * Measures tab completion of sub command names, whitelisted
+ * player names and duration units.
+ * <p>
+ * Player prefix <tt>player1</tt> matches about tenth of
+ * whitelisted players, so completion is always capped.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class TabCompleteBenchmark {
+    @Param({"10000", "1000000"})
+    private int whitelisted;
+
+    private WhitelistCommand command;
+    private CommandSender sender;
+
+    @Setup(Level.Trial) public void setUp() throws Exception {
+        BenchmarkPlugin plugin = BenchmarkServer.plugin();
+        DatabaseManager database = BenchmarkDatabase.open(plugin);
+
+        BenchmarkDatabase.insertPlayers("player", whitelisted, 0, 0);
+        if (!WhitelistIndex.load())
+            throw new IllegalStateException("Unable to load whitelist index.");
+
+        BenchmarkServer.setOfflinePlayers(0);
+        KnownPlayersIndex knownPlayers = new KnownPlayersIndex();
+        knownPlayers.load();
+
+        command = new WhitelistCommand(
+            MessagesManager.getInstance(plugin.getDataFolder(), "en"), plugin,
+            new UnknownPlayersWriter(500, 10_000), database, knownPlayers, plugin
+        );
+        sender = BenchmarkServer.sender();
+    }
+
+    @TearDown(Level.Trial) public void tearDown() {
+        command.close();
+    }
+
+    @Benchmark public List<String> subCommand() {
+        return command.onTabComplete(sender, null, "wh", new String[] {"e"});
+    }
+
+    @Benchmark public List<String> whitelistedPlayer() {
+        return command.onTabComplete(sender, null, "wh", new String[] {"remove", "Player1"});
+    }
+
+    @Benchmark public List<String> durationUnit() {
+        return command.onTabComplete(sender, null, "wh", new String[] {"add", "Notch", "1d12m"});
+    }
+}
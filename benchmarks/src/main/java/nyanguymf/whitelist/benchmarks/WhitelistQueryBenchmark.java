@@ -0,0 +1,89 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nyanguymf.whitelist.core.db.WhitelistQuery;
+import nyanguymf.whitelist.core.db.WhitelistQuery.Page;
+
+/**
+ * Measures fetching of <tt>/wh list</tt> pages.
+ * <p>
+ * {@link #firstPage()} and {@link #farPage()} fetch page without
+ * cursor, so far page has to find its start first.
+ * {@link #nextPage()} continues from cursor of far page, which is
+ * what paging through list does.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class WhitelistQueryBenchmark {
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private WhitelistQuery query;
+    private Page farPage;
+
+    @Setup public void setUp() throws Exception {
+        BenchmarkDatabase.open(BenchmarkServer.plugin());
+        BenchmarkDatabase.insertPlayers("player", rows, 0, 10);
+
+        query = WhitelistQuery.all(PAGE_SIZE);
+        farPage = query.page(1_000, null);
+
+        if (!farPage.hasNext())
+            throw new IllegalStateException("Page 1000 is the last one.");
+    }
+
+    @Benchmark public Page firstPage() throws Exception {
+        return query.page(1, null);
+    }
+
+    @Benchmark public Page farPage() throws Exception {
+        return query.page(1_000, null);
+    }
+
+    @Benchmark public Page nextPage() throws Exception {
+        return query.page(1_001, farPage.getNext());
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.collections;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over 64-bit hashes.
+ * <p>
+ * Filter never gives false negatives: if {@link #mightContain(long)}
+ * returns <tt>false</tt>, hash was never added. Positives are wrong
+ * with probability which depends on amount of added hashes, see
+ * {@link #expectedFalsePositiveRate()}. Hashes can't be removed.
+ * <p>
+ * Bit positions are derived from two halves of hash by double
+ * hashing, so callers should pass well mixed hashes (see
+ * {@link #hash(UUID)} and {@link #hash(CharSequence)}).
+ * <p>
+ * All methods are thread-safe and lock-free.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    private BloomFilter(final long bits, final int hashes) {
+        int wordCount = (int) ((bits + 63) >>> 6);
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = (long) wordCount << 6;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Creates filter with optimal size for given amount
+     * of elements and false positive rate.
+     *
+     * @param   expected            Expected amount of elements.
+     * @param   falsePositiveRate   Desired false positive rate
+     *      when filter holds expected amount of elements.
+     * @param   maxBytes            Max size of filter in bytes or
+     *      <tt>0</tt> if unlimited. If optimal filter is larger,
+     *      it's truncated and false positive rate goes up.
+     * @throws IllegalArgumentException if rate isn't between
+     *      <tt>0</tt> and <tt>1</tt> exclusive.
+     */
+    public static BloomFilter create(
+        final long expected, final double falsePositiveRate, final long maxBytes
+    ) {
+        if (!(falsePositiveRate > 0) || !(falsePositiveRate < 1))
+            throw new IllegalArgumentException("False positive rate must be in (0, 1)");
+
+        long elements = Math.max(1, expected);
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-elements * Math.log(falsePositiveRate) / (ln2 * ln2));
+
+        if (maxBytes > 0) {
+            bits = Math.min(bits, maxBytes << 3);
+        }
+        // array of longs is indexed by int
+        bits = Math.max(64, Math.min(bits, (long) Integer.MAX_VALUE << 6));
+        int hashes = (int) Math.round((double) bits / elements * ln2);
+
+        return new BloomFilter(bits, Math.max(1, Math.min(hashes, 30)));
+    }
+
+    /** Adds given hash to filter. */
+    public void add(final long hash) {
+        long h1 = hash;
+        long h2 = (hash >>> 32) | (hash << 32);
+
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+
+            do {
+                current = words.get(word);
+
+                if ((current & mask) != 0)
+                    break;
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Checks if given hash might have been added.
+     *
+     * @return <tt>false</tt> if hash definitely wasn't added.
+     */
+    public boolean mightContain(final long hash) {
+        long h1 = hash;
+        long h2 = (hash >>> 32) | (hash << 32);
+
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Estimates current false positive rate from
+     * amount of set bits.
+     * <p>
+     * Scans whole filter, so it shouldn't be called often.
+     */
+    public double expectedFalsePositiveRate() {
+        long setBits = 0;
+
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+
+        return Math.pow((double) setBits / bits, hashes);
+    }
+
+    /** @return size of filter in bits. */
+    public long getBits() {
+        return bits;
+    }
+
+    /** @return amount of bits set for every element. */
+    public int getHashes() {
+        return hashes;
+    }
+
+    /** @return approximate memory used by filter in bytes. */
+    public long getMemoryBytes() {
+        return bits >>> 3;
+    }
+
+    /** Gets well mixed 64-bit hash of given id. */
+    public static long hash(final UUID uuid) {
+        return mix(uuid.getMostSignificantBits() ^ mix(uuid.getLeastSignificantBits()));
+    }
+
+    /** Gets well mixed 64-bit hash of given characters. */
+    public static long hash(final CharSequence chars) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < chars.length(); i++) {
+            hash ^= chars.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    /** Finalization step of SplitMix64. */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
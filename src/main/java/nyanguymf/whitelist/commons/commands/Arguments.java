@@ -0,0 +1,106 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.commands;
+
+import java.util.Arrays;
+
+/**
+ * Read-only view of command arguments which follow
+ * sub command name.
+ * <p>
+ * View shares array given by server, so creating it
+ * doesn't copy arguments.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class Arguments {
+    private static final String[] EMPTY = new String[0];
+
+    private final String[] args;
+    private final int offset;
+    private final int length;
+
+    private Arguments(final String[] args, final int offset, final int length) {
+        this.args = args;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Creates view of given arguments starting from given index.
+     *
+     * @throws IndexOutOfBoundsException if index is negative
+     *      or greater than amount of arguments.
+     */
+    public static Arguments of(final String[] args, final int from) {
+        if ((from < 0) || (from > args.length))
+            throw new IndexOutOfBoundsException("From: " + from + ", length: " + args.length);
+
+        return new Arguments(args, from, args.length - from);
+    }
+
+    /** Creates view of all given arguments. */
+    public static Arguments of(final String...args) {
+        return of(args, 0);
+    }
+
+    /** @return amount of arguments. */
+    public int length() {
+        return length;
+    }
+
+    /** @return <tt>true</tt> if there are no arguments. */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Gets argument by its index.
+     *
+     * @throws IndexOutOfBoundsException if there's no such argument.
+     */
+    public String get(final int index) {
+        if ((index < 0) || (index >= length))
+            throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+
+        return args[offset + index];
+    }
+
+    /**
+     * Gets last argument.
+     *
+     * @throws IndexOutOfBoundsException if there are no arguments.
+     */
+    public String last() {
+        return get(length - 1);
+    }
+
+    /** @return copy of arguments as array. */
+    public String[] toArray() {
+        return (length == 0) ? EMPTY : Arrays.copyOfRange(args, offset, offset + length);
+    }
+
+    @Override public String toString() {
+        return String.join(" ", Arrays.asList(args).subList(offset, offset + length));
+    }
+}
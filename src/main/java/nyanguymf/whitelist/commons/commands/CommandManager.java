@@ -22,12 +22,19 @@
  */
 package nyanguymf.whitelist.commons.commands;
 
-import static java.util.stream.Collectors.toList;
-
-import java.util.Arrays;
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -35,16 +42,55 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.plugin.java.JavaPlugin;
 
-/** @author NyanGuyMF - Vasiliy Bely */
-public abstract class CommandManager implements CommandExecutor, TabCompleter {
+/**
+ * Dispatches command to its sub commands.
+ * <p>
+ * Sub commands do their blocking work on executor of this
+ * manager, so it should be closed when plug-in is
+ * disabled. Latency of every sub command is recorded to
+ * {@link CommandMetrics}.
+ * <p>
+ * First argument is completed with names of sub commands
+ * which sender has permission for, others are completed
+ * by sub command.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public abstract class CommandManager implements CommandExecutor, TabCompleter, Closeable {
+    private static final int MAX_COMPLETIONS = 100;
+    private static final long CLOSE_TIMEOUT = 10;
     private String name;
     private String usage;
     private Map<String, SubCommand> subCommands;
+    /** Immutable map of lowercase names and aliases to sub commands. */
+    private volatile Map<String, SubCommand> dispatch;
+    private volatile PrefixIndex subCommandNames;
+    private Map<String, CommandMetrics> metrics;
+    private ExecutorService executor;
+    private JavaPlugin plugin;
 
     public CommandManager(final String name, final String usage) {
+        this(name, usage, 2);
+    }
+
+    /**
+     * @param   name    Name of command.
+     * @param   usage   Usage message of command.
+     * @param   threads Amount of threads for blocking work
+     *      of asynchronous sub commands.
+     */
+    public CommandManager(final String name, final String usage, final int threads) {
         this.name = name;
         this.usage = usage;
         subCommands = new HashMap<>();
+        dispatch = Collections.emptyMap();
+        subCommandNames = PrefixIndex.of();
+        metrics = new ConcurrentHashMap<>();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "TemporalWhitelist-Command");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -65,44 +111,67 @@ public abstract class CommandManager implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        boolean isExecuted = false;
+        final String subCommandName = args[0].toLowerCase(Locale.ROOT);
+        final Arguments subArgs = Arguments.of(args, 1);
+        SubCommand subCommand = dispatch.get(subCommandName);
 
-        final String subCommandName = args[0].toLowerCase();
-        final String[] subArgs = Arrays.copyOfRange(args, 1, args.length);
+        if (subCommand == null) {
+            sender.sendMessage(usage);
+            return true;
+        }
 
-        if (subCommands.containsKey(subCommandName)) {
-            SubCommand subCommand = subCommands.get(subCommandName);
+        execute(sender, subCommand, subCommandName, subArgs);
+        return true;
+    }
 
-            if (!subCommand.execute(sender, subCommandName, subArgs)) {
-                sender.sendMessage(subCommand.getUsage());
-            }
+    /**
+     * Starts sub command and sends its messages from
+     * main thread when it's done.
+     */
+    private void execute(
+        final CommandSender sender, final SubCommand subCommand,
+        final String alias, final Arguments args
+    ) {
+        CommandMetrics metric = metricOf(subCommand);
+        long start = System.nanoTime();
+        CompletableFuture<List<String>> future;
 
-            isExecuted = true;
+        try {
+            future = subCommand.executeAsync(sender, alias, args);
+        } catch (RuntimeException ex) {
+            metric.record(System.nanoTime() - start, true);
+            throw ex;
         }
 
-        if (isExecuted)
-            return isExecuted;
+        if (future == null) {
+            metric.record(System.nanoTime() - start, false);
+            sender.sendMessage(subCommand.getUsage());
+            return;
+        }
 
-        for (SubCommand subCommand : subCommands.values()) {
-            for (String subCommandAlias : subCommand.getAliases()) {
-                if (!subCommandAlias.equals(subCommandName)) {
-                    continue;
-                }
+        future.whenComplete((messages, ex) -> {
+            metric.record(System.nanoTime() - start, ex != null);
 
-                if (!subCommand.execute(sender, subCommandName, subArgs)) {
-                    sender.sendMessage(subCommand.getUsage());
-                }
+            Collection<String> reply = (ex == null)
+                    ? messages
+                    : subCommand.failed(ex instanceof CompletionException ? ex.getCause() : ex);
 
-                isExecuted = true;
-                break;
+            if ((reply != null) && !reply.isEmpty()) {
+                runOnMainThread(() -> reply.forEach(sender::sendMessage));
             }
-        }
+        });
+    }
 
-        if (!isExecuted) {
-            sender.sendMessage(usage);
+    private void runOnMainThread(final Runnable task) {
+        if ((plugin == null) || plugin.getServer().isPrimaryThread()) {
+            task.run();
+        } else if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
         }
+    }
 
-        return true;
+    private CommandMetrics metricOf(final SubCommand subCommand) {
+        return metrics.computeIfAbsent(subCommand.getName(), CommandMetrics::new);
     }
 
     @Override public List<String> onTabComplete(
@@ -110,26 +179,96 @@ public abstract class CommandManager implements CommandExecutor, TabCompleter {
         final String alias, final String[] args
     ) {
         if (args.length == 1)
-            return subCommands.keySet().parallelStream()
-                .filter(subCommandName -> subCommandName.startsWith(args[0]))
-                .collect(toList());
-        else
+            return subCommandNames.startingWith(args[0], MAX_COMPLETIONS, subCommandName -> {
+                SubCommand subCommand = dispatch.get(subCommandName.toLowerCase(Locale.ROOT));
+                return sender.hasPermission(subCommand.getPermission());
+            });
+
+        SubCommand subCommand = dispatch.get(args[0].toLowerCase(Locale.ROOT));
+
+        if (subCommand == null)
             return null;
+
+        if (!sender.hasPermission(subCommand.getPermission()))
+            return Collections.emptyList();
+
+        return subCommand.tabComplete(sender, Arguments.of(args, 1));
     }
 
     /**
      * Adds given sub command to this manager.
+     * <p>
+     * Dispatch map is rebuilt, so sub commands should
+     * be added once, when manager is created.
      *
      * @param   subCommand  Sub command to add.
      * @return previous sub command with this same name.
      */
-    public final SubCommand addSub(final SubCommand subCommand) {
-        return subCommands.put(subCommand.getName(), subCommand);
+    public final synchronized SubCommand addSub(final SubCommand subCommand) {
+        subCommand.setExecutor(executor);
+
+        SubCommand previous = subCommands.put(subCommand.getName(), subCommand);
+        dispatch = dispatchMap(subCommands.values());
+        subCommandNames = PrefixIndex.of(subCommands.keySet());
+
+        return previous;
+    }
+
+    /**
+     * Maps lowercase names and aliases to sub commands.
+     * <p>
+     * Names take precedence over aliases of other sub commands.
+     */
+    private static Map<String, SubCommand> dispatchMap(final Collection<SubCommand> subCommands) {
+        Map<String, SubCommand> dispatch = new HashMap<>();
+
+        for (SubCommand subCommand : subCommands) {
+            for (String subCommandAlias : subCommand.getAliases()) {
+                dispatch.putIfAbsent(subCommandAlias.toLowerCase(Locale.ROOT), subCommand);
+            }
+        }
+        for (SubCommand subCommand : subCommands) {
+            dispatch.put(subCommand.getName().toLowerCase(Locale.ROOT), subCommand);
+        }
+
+        return Collections.unmodifiableMap(dispatch);
+    }
+
+    /**
+     * Gets latency metrics of sub commands, which
+     * were executed at least once.
+     *
+     * @return unmodifiable view of metrics by sub command name.
+     */
+    public final Map<String, CommandMetrics> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
     }
 
     /** Registers command for plugin. */
     public final void register(final JavaPlugin plugin) {
+        this.plugin = plugin;
         plugin.getCommand(name).setExecutor(this);
         plugin.getCommand(name).setTabCompleter(this);
     }
+
+    /**
+     * Stops executor of asynchronous sub commands.
+     * <p>
+     * Sub commands which are already started are finished,
+     * so their changes aren't lost, but it's waited for at
+     * most {@value #CLOSE_TIMEOUT} seconds.
+     */
+    @Override public void close() {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                System.err.printf(
+                    "Sub commands of %s weren't finished in %d seconds.\n", name, CLOSE_TIMEOUT
+                );
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
@@ -0,0 +1,83 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.commands;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency counters of single sub command.
+ * <p>
+ * Latency of asynchronous command is measured from dispatch
+ * till its work is done, of synchronous one it's time of
+ * {@link SubCommand#execute} call.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class CommandMetrics {
+    private final String name;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    CommandMetrics(final String name) {
+        this.name = name;
+    }
+
+    void record(final long nanos, final boolean isFailed) {
+        executions.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+
+        if (isFailed) {
+            failures.increment();
+        }
+    }
+
+    /** @return name of sub command. */
+    public String getName() {
+        return name;
+    }
+
+    /** @return amount of executions. */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /** @return amount of executions which failed with exception. */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /** @return average latency in microseconds. */
+    public long getAverageMicros() {
+        long executions = this.executions.sum();
+        return (executions == 0) ? 0 : totalNanos.sum() / executions / 1_000;
+    }
+
+    /** @return max latency in microseconds. */
+    public long getMaxMicros() {
+        return maxNanos.get() / 1_000;
+    }
+}
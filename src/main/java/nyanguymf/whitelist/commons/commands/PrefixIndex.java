@@ -0,0 +1,147 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.commands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Immutable set of strings for prefix lookups ignoring case.
+ * <p>
+ * Strings are kept in array sorted by their lower case form,
+ * so lookup is binary search of first match followed by scan
+ * which stops at first string without given prefix or when
+ * limit is reached.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class PrefixIndex {
+    private static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new String[0]);
+
+    /** Lower case strings in ascending order. */
+    private final String[] keys;
+    /** Strings as they were given, in order of keys. */
+    private final String[] values;
+
+    private PrefixIndex(final String[] keys, final String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Creates index of given strings.
+     * <p>
+     * Strings which are equal ignoring case are indexed once.
+     */
+    public static PrefixIndex of(final Collection<String> strings) {
+        if (strings.isEmpty())
+            return EMPTY;
+
+        String[][] entries = new String[strings.size()][];
+        int size = 0;
+
+        for (String string : strings) {
+            if (string != null) {
+                entries[size++] = new String[] {string.toLowerCase(Locale.ROOT), string};
+            }
+        }
+
+        Arrays.sort(entries, 0, size, (first, second) -> first[0].compareTo(second[0]));
+
+        String[] keys = new String[size];
+        String[] values = new String[size];
+        int unique = 0;
+
+        for (int i = 0; i < size; i++) {
+            if ((unique == 0) || !keys[unique - 1].equals(entries[i][0])) {
+                keys[unique] = entries[i][0];
+                values[unique] = entries[i][1];
+                unique++;
+            }
+        }
+
+        return new PrefixIndex(Arrays.copyOf(keys, unique), Arrays.copyOf(values, unique));
+    }
+
+    /** @see #of(Collection) */
+    public static PrefixIndex of(final String...strings) {
+        return of(Arrays.asList(strings));
+    }
+
+    /**
+     * Gets strings which start with given prefix ignoring case,
+     * in alphabetical order.
+     *
+     * @param   prefix  Prefix of strings.
+     * @param   limit   Max amount of strings to return.
+     */
+    public List<String> startingWith(final String prefix, final int limit) {
+        return startingWith(prefix, limit, null);
+    }
+
+    /**
+     * Gets strings which start with given prefix ignoring case
+     * and are accepted by given filter, in alphabetical order.
+     *
+     * @param   prefix  Prefix of strings.
+     * @param   limit   Max amount of strings to return.
+     * @param   filter  Filter of strings or <tt>null</tt>.
+     */
+    public List<String> startingWith(
+        final String prefix, final int limit, final Predicate<String> filter
+    ) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int index = Arrays.binarySearch(keys, key);
+
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        if ((limit <= 0) || (index == keys.length) || !keys[index].startsWith(key))
+            return Collections.emptyList();
+
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+
+        for (; (index < keys.length) && (result.size() < limit); index++) {
+            if (!keys[index].startsWith(key)) {
+                break;
+            }
+
+            if ((filter == null) || filter.test(values[index])) {
+                result.add(values[index]);
+            }
+        }
+
+        return result;
+    }
+
+    /** @return amount of indexed strings. */
+    public int size() {
+        return keys.length;
+    }
+}
@@ -22,12 +22,32 @@
  */
 package nyanguymf.whitelist.commons.commands;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import org.bukkit.command.CommandSender;
 
-/** @author NyanGuyMF - Vasiliy Bely */
+/**
+ * Sub command of {@link CommandManager}.
+ * <p>
+ * Sub command which is done on main thread overrides
+ * {@link #execute}. Sub command which does blocking work
+ * overrides {@link #executeAsync} instead, checks permissions
+ * and arguments there, then starts blocking work with
+ * {@link #supplyAsync} and returns future of messages for
+ * sender. {@link CommandManager} sends them from main thread
+ * once future is completed.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
 public abstract class SubCommand {
+    private volatile Executor executor;
+
     private String name;
 
     private String permission;
@@ -51,17 +71,86 @@ public abstract class SubCommand {
     }
 
     /**
-     * Executes sub command by given sender.
+     * Executes sub command by given sender on main thread.
      * <p>
      * If returned value is <tt>false</tt> the {@link CommandManager}
      * will send {@link #usage} message to {@link CommandSender}.
+     * It's what sub command does if it overrides neither this
+     * method nor {@link #executeAsync}.
      *
      * @param   sender  The person who executed command.
      * @param   alias   Used command alias.
      * @param   args    Arguments of command.
      * @return <tt>true</tt> if command executed successfully.
      */
-    public abstract boolean execute(CommandSender sender, String alias, String[] args);
+    public boolean execute(final CommandSender sender, final String alias, final Arguments args) {
+        return false;
+    }
+
+    /**
+     * Starts execution of sub command by given sender.
+     * <p>
+     * Called on main thread. By default it's {@link #execute}
+     * which is already completed when this method returns.
+     *
+     * @param   sender  The person who executed command.
+     * @param   alias   Used command alias.
+     * @param   args    Arguments of command.
+     * @return future of messages for sender or <tt>null</tt>
+     *      if {@link #getUsage() usage} should be sent instead.
+     */
+    public CompletableFuture<List<String>> executeAsync(
+        final CommandSender sender, final String alias, final Arguments args
+    ) {
+        return execute(sender, alias, args) ? reply() : null;
+    }
+
+    /**
+     * Gets messages which are sent to sender if
+     * command failed with exception.
+     * <p>
+     * By default exception is printed and nothing is sent.
+     *
+     * @param   cause   Exception thrown by command.
+     */
+    protected List<String> failed(final Throwable cause) {
+        System.err.printf("Unable to execute %s command: %s\n", getName(), cause);
+        return Collections.emptyList();
+    }
+
+    /** Runs given work on command executor of manager. */
+    protected final <T> CompletableFuture<T> supplyAsync(final Supplier<T> work) {
+        Executor executor = this.executor;
+
+        if (executor == null)
+            throw new IllegalStateException(getName() + " isn't added to command manager");
+
+        return CompletableFuture.supplyAsync(work, executor);
+    }
+
+    /** @return already completed future of given messages. */
+    protected static CompletableFuture<List<String>> reply(final String...messages) {
+        return CompletableFuture.completedFuture(Arrays.asList(messages));
+    }
+
+    /** Sets executor for blocking work. */
+    final void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Completes last argument of sub command.
+     * <p>
+     * Returns <tt>null</tt> by default, so server
+     * completes names of online players.
+     *
+     * @param   sender  The person who completes command.
+     * @param   args    Arguments of command, last one is incomplete.
+     * @return list of completions or <tt>null</tt>.
+     */
+    public List<String> tabComplete(final CommandSender sender, final Arguments args) {
+        return null;
+    }
 
     protected final boolean hasPermission(final CommandSender sender) {
         return sender.hasPermission(getPermission());
@@ -0,0 +1,195 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Writes file in background.
+ * <p>
+ * Write is delayed by debounce time after first request and
+ * all requests made during that time are written once, with
+ * content of the last one. Content is made on writer thread
+ * right before writing, so callers never wait for disk.
+ * <p>
+ * Content is written into temporary file, which is synced to
+ * disk and then renamed over target file, so after crash file
+ * has either old or new content, but never part of it.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class DebouncedFileWriter implements Closeable {
+    private final Path file;
+    private final long debounce;
+    private final FileWatcher watcher;
+    private final ScheduledThreadPoolExecutor executor;
+    private Supplier<String> pending;
+    private Runnable onWritten;
+
+    /**
+     * @param   file        File to write.
+     * @param   debounce    Delay of write in milliseconds.
+     * @param   watcher     Watcher of file folder, which shouldn't
+     *      report writes of this writer, or <tt>null</tt>.
+     */
+    public DebouncedFileWriter(final Path file, final long debounce, final FileWatcher watcher) {
+        this.file = file;
+        this.debounce = Math.max(0, debounce);
+        this.watcher = watcher;
+        executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "TemporalWhitelist-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // delayed write is done by close() right away
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Requests write of file.
+     *
+     * @param   content     Makes content of file, it's called on
+     *      writer thread and may return <tt>null</tt> if file
+     *      is already up to date.
+     */
+    public void write(final Supplier<String> content) {
+        write(content, null);
+    }
+
+    /**
+     * Requests write of file.
+     *
+     * @param   content     Makes content of file, it's called on
+     *      writer thread and may return <tt>null</tt> if file
+     *      is already up to date.
+     * @param   onWritten   Called on writer thread after content
+     *      is written, or <tt>null</tt>.
+     */
+    public synchronized void write(final Supplier<String> content, final Runnable onWritten) {
+        boolean isScheduled = pending != null;
+        pending = content;
+        this.onWritten = onWritten;
+
+        if (!isScheduled && !executor.isShutdown()) {
+            executor.schedule(this::flush, debounce, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Writes pending content right now. */
+    private void flush() {
+        Supplier<String> content;
+        Runnable onWritten;
+        synchronized (this) {
+            content = pending;
+            onWritten = this.onWritten;
+            pending = null;
+            this.onWritten = null;
+        }
+
+        if (content == null)
+            return;
+
+        try {
+            String text = content.get();
+
+            if (text == null)
+                return;
+
+            writeAtomically(text.getBytes(UTF_8));
+
+            if (watcher != null) {
+                watcher.ignoreWrite(file);
+            }
+            if (onWritten != null) {
+                onWritten.run();
+            }
+        } catch (IOException | RuntimeException ex) {
+            System.err.printf(
+                "Unable to write %s: %s\n", file.getFileName(), ex.getLocalizedMessage()
+            );
+        }
+    }
+
+    private void writeAtomically(final byte[] content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(
+            temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(
+                temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        syncFolder();
+    }
+
+    /** Makes rename durable, it isn't supported on some systems. */
+    private void syncFolder() {
+        try (FileChannel folder = FileChannel.open(file.toAbsolutePath().getParent())) {
+            folder.force(true);
+        } catch (IOException ignore) {}
+    }
+
+    /**
+     * Stops writer and writes pending content on calling thread.
+     * <p>
+     * Write which is already running isn't interrupted, it's
+     * waited for instead.
+     */
+    @Override public void close() {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.config;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches files of single folder for edits.
+ * <p>
+ * Editors usually write file with several events, so changes
+ * are collected until folder was quiet for debounce time and
+ * then listener is called once with names of all changed files.
+ * Listener is called on watcher thread.
+ * <p>
+ * Files written by plug-in itself should be marked with
+ * {@link #ignoreWrite(Path)}, so they aren't reported back.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class FileWatcher implements Closeable {
+    private final Path folder;
+    private final long debounce;
+    private final Consumer<Set<String>> listener;
+    /** Size and modification time of files written by plug-in itself. */
+    private final Map<String, Stamp> ownWrites = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * @param   folder      Folder to watch.
+     * @param   debounce    Time in milliseconds without events after
+     *      which changes are reported.
+     * @param   listener    Receives names of changed files.
+     */
+    public FileWatcher(
+        final Path folder, final long debounce, final Consumer<Set<String>> listener
+    ) {
+        this.folder = folder;
+        this.debounce = Math.max(0, debounce);
+        this.listener = listener;
+    }
+
+    /**
+     * Starts watching folder.
+     *
+     * @throws IOException if folder can't be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null)
+            return;
+
+        watchService = folder.getFileSystem().newWatchService();
+        folder.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+        thread = new Thread(this::watch, "TemporalWhitelist-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Remembers current state of given file, which was just
+     * written by plug-in, so its events aren't reported.
+     */
+    public void ignoreWrite(final Path file) {
+        Stamp stamp = Stamp.of(file);
+
+        if (stamp != null) {
+            ownWrites.put(file.getFileName().toString(), stamp);
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                Set<String> changed = new HashSet<>();
+                collect(watchService.take(), changed);
+
+                // wait until editor finished writing
+                WatchKey key;
+                while ((key = watchService.poll(debounce, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+
+                // temporary files are already renamed by now
+                changed.removeIf(name -> !Files.exists(folder.resolve(name)));
+                changed.removeIf(this::isOwnWrite);
+
+                if (!changed.isEmpty()) {
+                    notifyListener(changed);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException stopped) {
+            // watcher was closed
+        }
+    }
+
+    private void collect(final WatchKey key, final Set<String> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path) {
+                changed.add(((Path) event.context()).getFileName().toString());
+            }
+        }
+        key.reset();
+    }
+
+    private boolean isOwnWrite(final String fileName) {
+        Stamp written = ownWrites.get(fileName);
+
+        return (written != null) && written.equals(Stamp.of(folder.resolve(fileName)));
+    }
+
+    private void notifyListener(final Set<String> changed) {
+        try {
+            listener.accept(Collections.unmodifiableSet(changed));
+        } catch (RuntimeException ex) {
+            System.err.printf("Unable to apply changes of %s: %s\n", changed, ex);
+        }
+    }
+
+    @Override public synchronized void close() {
+        if (thread == null)
+            return;
+
+        try {
+            watchService.close();
+        } catch (IOException ignore) {}
+
+        thread.interrupt();
+        thread = null;
+    }
+
+    /** Size and modification time of file. */
+    private static final class Stamp {
+        private final long size;
+        private final long modified;
+
+        private Stamp(final long size, final long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        /** @return stamp or <tt>null</tt> if file can't be read. */
+        private static Stamp of(final Path file) {
+            try {
+                return new Stamp(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+
+        @Override public boolean equals(final Object obj) {
+            if (!(obj instanceof Stamp))
+                return false;
+
+            Stamp other = (Stamp) obj;
+            return (size == other.size) && (modified == other.modified);
+        }
+
+        @Override public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(modified);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.db;
+
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * Circuit breaker for database operations.
+ * <p>
+ * After given amount of consecutive failures breaker opens
+ * and rejects all operations for configured time. Then it
+ * lets one trial operation through: its success closes
+ * breaker, failure opens it again.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openTime;
+    private State state = State.CLOSED;
+    private int failures = 0;
+    private long openedAt = 0;
+    enum State {
+        CLOSED, OPEN, HALF_OPEN;
+    }
+
+    /**
+     * @param   failureThreshold    Amount of consecutive failures
+     *      after which breaker opens.
+     * @param   openTime            Time in millis while breaker
+     *      stays open.
+     */
+    CircuitBreaker(final int failureThreshold, final long openTime) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openTime = openTime;
+    }
+
+    /**
+     * Checks if operation may be executed.
+     *
+     * @throws CircuitOpenException if breaker is open.
+     */
+    synchronized void acquire() throws CircuitOpenException {
+        switch (state) {
+        case OPEN:
+            long retryAfter = (openedAt + openTime) - currentTimeMillis();
+
+            if (retryAfter > 0)
+                throw new CircuitOpenException(retryAfter);
+
+            state = State.HALF_OPEN;
+            return;
+        case HALF_OPEN:
+            // trial operation is already running
+            throw new CircuitOpenException(0);
+        case CLOSED:
+        default:
+            return;
+        }
+    }
+
+    synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    synchronized void onFailure() {
+        failures++;
+
+        if ((state == State.HALF_OPEN) || (failures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = currentTimeMillis();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
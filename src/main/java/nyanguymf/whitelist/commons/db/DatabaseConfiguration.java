@@ -22,6 +22,9 @@
  */
 package nyanguymf.whitelist.commons.db;
 
+import java.util.Collections;
+import java.util.List;
+
 /** @author NyanGuyMF - Vasiliy Bely */
 public interface DatabaseConfiguration {
     /** Gets SQL connector name, ex. MySQL/H2. */
@@ -41,4 +44,77 @@ public interface DatabaseConfiguration {
 
     /** Gets database daemon port. */
     int getPort();
+
+    /** Checks if connection pool should be used instead of single connection. */
+    default boolean isPoolEnabled() {
+        return false;
+    }
+
+    /** Gets amount of connections which pool keeps open. */
+    default int getPoolMinSize() {
+        return 1;
+    }
+
+    /** Gets max amount of connections in use at the same time. */
+    default int getPoolMaxSize() {
+        return 10;
+    }
+
+    /** Gets query to validate connections, empty for driver's default. */
+    default String getPoolValidationQuery() {
+        return "";
+    }
+
+    /** Gets time in millis after which idle connection is closed, 0 to disable. */
+    default long getPoolIdleTimeout() {
+        return 600_000;
+    }
+
+    /** Gets max time in millis connection lives, 0 to disable. */
+    default long getPoolMaxLifetime() {
+        return 1_800_000;
+    }
+
+    /** Gets max time in millis to wait for free connection. */
+    default long getPoolAcquireTimeout() {
+        return 5_000;
+    }
+
+    /** Gets max amount of attempts for single database operation. */
+    default int getRetryAttempts() {
+        return 3;
+    }
+
+    /** Gets delay in millis before first retry, doubled for next ones. */
+    default long getRetryBaseDelay() {
+        return 50;
+    }
+
+    /** Gets max delay in millis between retries. */
+    default long getRetryMaxDelay() {
+        return 1_000;
+    }
+
+    /** Gets amount of consecutive failures after which database is considered unavailable. */
+    default int getBreakerThreshold() {
+        return 5;
+    }
+
+    /** Gets time in millis for which operations are rejected after database became unavailable. */
+    default long getBreakerOpenTime() {
+        return 10_000;
+    }
+
+    /**
+     * Gets Maven repositories to download driver from, in order
+     * of preference: base URLs or local folders with the same layout.
+     */
+    default List<String> getDriverMirrors() {
+        return Collections.singletonList("https://repo1.maven.org/maven2/");
+    }
+
+    /** Gets connect and read timeout in millis of driver download. */
+    default int getDriverDownloadTimeout() {
+        return 10_000;
+    }
 }
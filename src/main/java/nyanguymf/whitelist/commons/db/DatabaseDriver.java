@@ -25,33 +25,33 @@ package nyanguymf.whitelist.commons.db;
 /** @author NyanGuyMF - Vasiliy Bely */
 enum DatabaseDriver {
     MySQL(
-        "http://central.maven.org/maven2/mysql/mysql-connector-java/8.0.15/mysql-connector-java-8.0.15.jar"
-        , "27e3ced4adad4feec926b56dfeb94031"
+        "mysql/mysql-connector-java/8.0.15/mysql-connector-java-8.0.15.jar"
+        , "8ae9fca44d84506399d7f806a7896e4e056daa31571ec67c645bdcacfa434f58"
         , "com.mysql.cj.jdbc.Driver"
         , "jdbc:mysql://{host}:{port}/{database}"
     ),
 
     H2(
-        "http://central.maven.org/maven2/com/h2database/h2/1.4.199/h2-1.4.199.jar"
-        , "f805f57d838de4b42ce01c7f85e46e1c"
+        "com/h2database/h2/1.4.199/h2-1.4.199.jar"
+        , "3125a16743bc6b4cfbb61abba783203f1fb68230aa0fdc97898f796f99a5d42e"
         , "org.h2.Driver"
         , "jdbc:h2:{host}/{database}"
     );
 
-    private String downloadUrl;
+    private String artifactPath;
 
-    private String md5Hash;
+    private String sha256;
 
     private String className;
 
     private String connectionUrlFormat;
 
     private DatabaseDriver(
-        final String downloadUrl, final String md5Hash,
+        final String artifactPath, final String sha256,
         final String className, final String connectionUrlFormat
     ) {
-        this.downloadUrl = downloadUrl;
-        this.md5Hash = md5Hash;
+        this.artifactPath = artifactPath;
+        this.sha256 = sha256;
         this.className = className;
         this.connectionUrlFormat = connectionUrlFormat;
     }
@@ -60,14 +60,14 @@ enum DatabaseDriver {
         return String.format("%s-driver.jar", super.toString().toLowerCase());
     }
 
-    /** @return the downloadUrl */
-    public String getDownloadUrl() {
-        return downloadUrl;
+    /** @return path of driver jar in Maven repository layout. */
+    public String getArtifactPath() {
+        return artifactPath;
     }
 
-    /** @return the md5Hash */
-    public String getMd5Hash() {
-        return md5Hash;
+    /** @return SHA-256 digest of driver jar in lower case hex. */
+    public String getSha256() {
+        return sha256;
     }
 
     /** @return the className */
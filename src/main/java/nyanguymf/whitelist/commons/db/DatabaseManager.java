@@ -24,16 +24,10 @@ package nyanguymf.whitelist.commons.db;
 
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
 import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
 
-import org.apache.commons.codec.digest.DigestUtils;
 import org.bukkit.plugin.Plugin;
 
 import com.j256.ormlite.jdbc.JdbcConnectionSource;
@@ -43,9 +37,11 @@ import com.j256.ormlite.support.ConnectionSource;
 public final class DatabaseManager implements Closeable {
     private ReflectionClassLoader classLoader;
     private File driversFolder;
-    private ConnectionSource conn;
-    private DatabaseConfiguration config;
-    private ConnectionStatus status;
+    private SwitchableConnectionSource conn;
+    private volatile DatabaseConfiguration config;
+    private DatabaseDriver driver;
+    private CircuitBreaker breaker;
+    private volatile ConnectionStatus status;
     public enum ConnectionStatus {
         NOT_CONNECTED_YET, CONNECTED, DRIVER_NOT_FOUND,
         INVALID_HASH, DOWNLOAD_ERROR, CLOSED,
@@ -72,11 +68,12 @@ public final class DatabaseManager implements Closeable {
 
         this.config = config;
         this.driversFolder = driversFolder;
+        breaker = new CircuitBreaker(config.getBreakerThreshold(), config.getBreakerOpenTime());
         status = ConnectionStatus.NOT_CONNECTED_YET;
     }
 
     public boolean connect() {
-        DatabaseDriver driver = findDriver(config.getDriverName());
+        driver = findDriver(config.getDriverName());
 
         if (driver == null)
             return isConnected();
@@ -87,32 +84,25 @@ public final class DatabaseManager implements Closeable {
             System.out.printf(
                 "Driver not found: %s. Adding to classpath...\n", ex.getLocalizedMessage()
             );
-            File driverJar = new File(driversFolder, driver.getFileName());
+            File driverJar;
 
-            if (!driverJar.exists()) {
-                driverJar = downloadDriver(driver, driverJar);
-            }
-
-            if (driverJar == null) {
-                status = ConnectionStatus.DOWNLOAD_ERROR;
-                return isConnected();
-            }
-
-            if (!isDriverHashValid(driver, driverJar)) {
-                driverJar.delete();
+            try {
+                driverJar = new DriverProvisioner(
+                    driversFolder, config.getDriverMirrors(), config.getDriverDownloadTimeout()
+                ).provide(driver);
+            } catch (DriverProvisioner.InvalidHashException hashEx) {
                 status = ConnectionStatus.INVALID_HASH;
                 return isConnected();
+            } catch (IOException ioEx) {
+                status = ConnectionStatus.DOWNLOAD_ERROR;
+                return isConnected();
             }
 
             classLoader.loadJar(driverJar.toPath());
         }
 
         try {
-            conn = new JdbcConnectionSource(
-                driver.getConnectionUrl(config),
-                config.getUsername(),
-                config.getPassword()
-            );
+            conn = new SwitchableConnectionSource(openConnectionSource());
         } catch (SQLException ex) {
             ex.printStackTrace();
             System.err.printf("Unable to connect to database: %s\n", ex.getMessage());
@@ -125,41 +115,180 @@ public final class DatabaseManager implements Closeable {
         return isConnected();
     }
 
-    private File downloadDriver(final DatabaseDriver driver, final File destination) {
-        URLConnection conn;
+    private ConnectionSource openConnectionSource() throws SQLException {
+        if (config.isPoolEnabled())
+            return new PooledConnectionSource(driver.getConnectionUrl(config), config);
+
+        return new JdbcConnectionSource(
+            driver.getConnectionUrl(config),
+            config.getUsername(),
+            config.getPassword()
+        );
+    }
+
+    /**
+     * Replaces current connection source with new one.
+     * <p>
+     * Existing DAOs keep working, because they're bound to
+     * {@link SwitchableConnectionSource}. Previous source is
+     * closed once connections taken from it are released.
+     *
+     * @return <tt>true</tt> if reconnected successfully.
+     */
+    public synchronized boolean reconnect() {
+        return (conn != null) && reconnect(conn.getDelegate());
+    }
+
+    /**
+     * Replaces given connection source if it's still current.
+     * <p>
+     * Many operations failing on the same source cause only
+     * one reconnect, others see it's already replaced.
+     *
+     * @param   failed  Source failed operation was executed on.
+     * @return <tt>true</tt> if source is replaced now or was already.
+     */
+    private synchronized boolean reconnect(final ConnectionSource failed) {
+        if ((conn == null) || (status == ConnectionStatus.CLOSED))
+            return false;
+
+        if (conn.getDelegate() != failed)
+            return true;
 
+        ConnectionSource source;
         try {
-            conn = new URL(driver.getDownloadUrl()).openConnection();
-        } catch (IOException ex) {
-            System.err.println(ex.getLocalizedMessage());
-            return null;
+            source = openConnectionSource();
+        } catch (SQLException ex) {
+            System.err.printf("Unable to reconnect to database: %s\n", ex.getMessage());
+            return false;
         }
 
-        try (InputStream in = conn.getInputStream()) {
-            Files.copy(in, destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException ex) {
-            System.err.println(ex.getLocalizedMessage());
-            return null;
-        }
+        conn.switchFrom(failed, source);
+        status = ConnectionStatus.CONNECTED;
+        System.out.println("Reconnected to database.");
 
-        return destination;
+        return true;
     }
 
     /**
-     * Compares persistent driver MD5 hash checksum and
-     * driver's file checksum.
+     * Reconnects to database with given configuration.
+     * <p>
+     * Driver can't be changed this way, because existing
+     * DAOs are bound to its database type.
      *
-     * @param   driver      Persistent driver instance.
-     * @param   driverFile  Existing driver file.
-     * @return <tt>true</tt> if checksums are equal.
+     * @return <tt>true</tt> if reconnected successfully.
      */
-    private boolean isDriverHashValid(final DatabaseDriver driver, final File driverFile) {
-        try (InputStream in = new FileInputStream(driverFile)) {
-            return driver.getMd5Hash().equals(DigestUtils.md5Hex(in));
-        } catch (IOException ex) {
-            System.err.println(ex.getLocalizedMessage());
+    public synchronized boolean reconnect(final DatabaseConfiguration config) {
+        if (!config.getDriverName().equalsIgnoreCase(this.config.getDriverName())) {
+            System.err.printf(
+                "Unable to switch database driver to %s without restart.\n",
+                config.getDriverName()
+            );
             return false;
         }
+
+        DatabaseConfiguration previous = this.config;
+        this.config = config;
+
+        if (!reconnect()) {
+            this.config = previous;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Executes given operation with bounded retries.
+     * <p>
+     * Failed operation is retried with exponential backoff
+     * and jitter, connection errors also cause reconnect.
+     * Constraint violations aren't retried. Consecutive
+     * failures open circuit breaker, so while database is
+     * unavailable operations fail immediately with
+     * {@link CircuitOpenException}.
+     *
+     * @param   operation   Operation to execute.
+     * @return result of operation.
+     * @throws SQLException if all attempts failed.
+     */
+    public <T> T execute(final SqlOperation<T> operation) throws SQLException {
+        int attempts = Math.max(1, config.getRetryAttempts());
+        SQLException lastException = null;
+
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            breaker.acquire();
+            ConnectionSource source = conn.getDelegate();
+
+            try {
+                T result = operation.call();
+                breaker.onSuccess();
+                return result;
+            } catch (SQLException ex) {
+                if (isConstraintViolation(ex)) {
+                    // database is alive, it's caller's problem
+                    breaker.onSuccess();
+                    throw ex;
+                }
+
+                breaker.onFailure();
+                lastException = ex;
+
+                if (isConnectionError(ex)) {
+                    reconnect(source);
+                }
+            } catch (RuntimeException | Error ex) {
+                // otherwise half-open breaker never gets result of its trial call
+                breaker.onFailure();
+                throw ex;
+            }
+
+            if (attempt + 1 < attempts) {
+                backoff(attempt);
+            }
+        }
+
+        throw lastException;
+    }
+
+    /** Sleeps for random time up to exponentially growing bound. */
+    private void backoff(final int attempt) throws SQLException {
+        long bound = Math.min(
+            config.getRetryMaxDelay(),
+            config.getRetryBaseDelay() << Math.min(attempt, 20)
+        );
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound / 2, bound + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for retry", ex);
+        }
+    }
+
+    private static boolean isConstraintViolation(final SQLException ex) {
+        String state = sqlState(ex);
+        return (state != null) && state.startsWith("23");
+    }
+
+    private static boolean isConnectionError(final SQLException ex) {
+        String state = sqlState(ex);
+        return (state == null) || state.startsWith("08");
+    }
+
+    /** Finds SQL state in given exception or its causes. */
+    private static String sqlState(final SQLException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if ((cause instanceof SQLException) && (((SQLException) cause).getSQLState() != null))
+                return ((SQLException) cause).getSQLState();
+        }
+
+        return null;
+    }
+
+    /** Checks if database operations are currently rejected by circuit breaker. */
+    public boolean isCircuitOpen() {
+        return breaker.getState() == CircuitBreaker.State.OPEN;
     }
 
     private DatabaseDriver findDriver(final String driverName) {
@@ -174,6 +303,20 @@ public final class DatabaseManager implements Closeable {
         return conn;
     }
 
+    /**
+     * Gets statistics of connection pool.
+     * <p>
+     * Returns <tt>null</tt> if pool isn't used.
+     */
+    public PoolStatistics getPoolStatistics() {
+        ConnectionSource source = conn == null ? null : conn.getDelegate();
+
+        if (source instanceof PooledConnectionSource)
+            return ((PooledConnectionSource) source).statistics();
+
+        return null;
+    }
+
     public ConnectionStatus getStatus() {
         return status;
     }
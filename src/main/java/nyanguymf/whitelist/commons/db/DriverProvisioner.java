@@ -0,0 +1,233 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.db;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Provides verified jar of database driver.
+ * <p>
+ * Jar is taken from first mirror which has it: mirror is either
+ * base URL of Maven repository or local folder with the same
+ * layout. Every jar is checked against pinned SHA-256 digest
+ * before it's used.
+ * <p>
+ * After jar was verified, its size and modification time are
+ * stored in <tt>.verified</tt> marker near it, so later starts
+ * with unchanged jar don't hash it again.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class DriverProvisioner {
+    /** Size of file region hashed at once. */
+    private static final long MAP_SIZE = 64L << 20;
+    private final File driversFolder;
+    private final List<String> mirrors;
+    private final int timeout;
+
+    /**
+     * @param   driversFolder   Folder where drivers are stored.
+     * @param   mirrors         Base URLs or folders to take drivers from.
+     * @param   timeout         Connect and read timeout of download
+     *      in milliseconds.
+     */
+    DriverProvisioner(final File driversFolder, final List<String> mirrors, final int timeout) {
+        this.driversFolder = driversFolder;
+        this.mirrors = mirrors;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets verified jar of given driver, downloading it
+     * if there isn't valid one.
+     *
+     * @return driver jar.
+     * @throws InvalidHashException if jars from all mirrors have
+     *      wrong digest.
+     * @throws IOException if no mirror has the jar.
+     */
+    File provide(final DatabaseDriver driver) throws IOException {
+        Path jar = new File(driversFolder, driver.getFileName()).toPath();
+        Path marker = jar.resolveSibling(driver.getFileName() + ".verified");
+
+        if (Files.exists(jar)) {
+            if (isMarkedVerified(jar, marker, driver))
+                return jar.toFile();
+
+            if (driver.getSha256().equals(sha256(jar))) {
+                markVerified(jar, marker, driver);
+                return jar.toFile();
+            }
+
+            System.err.printf("Driver %s has invalid digest, replacing it.\n", jar.getFileName());
+            Files.delete(jar);
+        }
+
+        Files.deleteIfExists(marker);
+        Files.createDirectories(driversFolder.toPath());
+
+        Path part = jar.resolveSibling(driver.getFileName() + ".part");
+        IOException failure = null;
+
+        for (String mirror : mirrors) {
+            try {
+                fetch(mirror, driver, part);
+
+                String digest = sha256(part);
+                if (!driver.getSha256().equals(digest))
+                    throw new InvalidHashException(String.format(
+                        "%s from %s has SHA-256 %s", driver.getFileName(), mirror, digest
+                    ));
+
+                move(part, jar);
+                markVerified(jar, marker, driver);
+                return jar.toFile();
+            } catch (IOException ex) {
+                System.err.printf(
+                    "Unable to get %s from %s: %s\n", driver, mirror, ex.getLocalizedMessage()
+                );
+                // hash mismatch is reported only if no mirror had valid jar
+                if ((failure == null) || (ex instanceof InvalidHashException)) {
+                    failure = ex;
+                }
+            } finally {
+                Files.deleteIfExists(part);
+            }
+        }
+
+        throw (failure != null) ? failure : new IOException("No driver mirrors configured.");
+    }
+
+    /** Copies driver from given mirror into given file. */
+    private void fetch(final String mirror, final DatabaseDriver driver, final Path destination)
+            throws IOException {
+        if (!mirror.contains("://")) {
+            Files.copy(
+                Paths.get(mirror, driver.getArtifactPath()), destination,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+            return;
+        }
+
+        String base = mirror.endsWith("/") ? mirror : mirror + '/';
+        URLConnection conn = new URL(base + driver.getArtifactPath()).openConnection();
+        conn.setConnectTimeout(timeout);
+        conn.setReadTimeout(timeout);
+
+        try (InputStream in = conn.getInputStream()) {
+            Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Hashes file by mapping it into memory by regions,
+     * so it isn't copied through heap buffers.
+     */
+    static String sha256(final Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size();
+
+            for (long position = 0; position < size; position += MAP_SIZE) {
+                MappedByteBuffer region = channel.map(
+                    FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_SIZE, size - position)
+                );
+                digest.update(region);
+            }
+        }
+
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static boolean isMarkedVerified(
+        final Path jar, final Path marker, final DatabaseDriver driver
+    ) {
+        try {
+            return Files.exists(marker)
+                    && new String(Files.readAllBytes(marker), UTF_8).equals(stamp(jar, driver));
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static void markVerified(final Path jar, final Path marker, final DatabaseDriver driver) {
+        try {
+            Files.write(marker, stamp(jar, driver).getBytes(UTF_8));
+        } catch (IOException ex) {
+            // jar will be hashed again on next start
+            System.err.printf(
+                "Unable to write %s: %s\n", marker.getFileName(), ex.getLocalizedMessage()
+            );
+        }
+    }
+
+    /** @return size, modification time and expected digest of jar. */
+    private static String stamp(final Path jar, final DatabaseDriver driver) throws IOException {
+        return String.format(
+            "%d %d %s", Files.size(jar), Files.getLastModifiedTime(jar).toMillis(), driver.getSha256()
+        );
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(
+                source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Thrown if driver jar doesn't match pinned digest. */
+    static final class InvalidHashException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        InvalidHashException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.db;
+
+/**
+ * Snapshot of connection pool state.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class PoolStatistics {
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final int maxSize;
+    private final long averageWaitMicros;
+    private final long maxWaitMicros;
+
+    PoolStatistics(
+        final int active, final int idle, final int waiting, final int maxSize,
+        final long averageWaitMicros, final long maxWaitMicros
+    ) {
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.maxSize = maxSize;
+        this.averageWaitMicros = averageWaitMicros;
+        this.maxWaitMicros = maxWaitMicros;
+    }
+
+    /** @return amount of connections in use. */
+    public int getActive() {
+        return active;
+    }
+
+    /** @return amount of free connections. */
+    public int getIdle() {
+        return idle;
+    }
+
+    /** @return amount of threads waiting for connection. */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    /** @return the maxSize */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** @return average time of waiting for connection in microseconds. */
+    public long getAverageWaitMicros() {
+        return averageWaitMicros;
+    }
+
+    /** @return max time of waiting for connection in microseconds. */
+    public long getMaxWaitMicros() {
+        return maxWaitMicros;
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.db;
+
+import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+/**
+ * Connection pool on top of {@link JdbcPooledConnectionSource}.
+ * <p>
+ * Adds what ORMLite pool doesn't have: upper bound of
+ * connections in use, custom validation query, idle
+ * eviction down to minimal size and wait time statistics.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class PooledConnectionSource extends JdbcPooledConnectionSource {
+    private final Semaphore permits;
+    private final int minSize;
+    private final int maxSize;
+    private final String validationQuery;
+    private final long idleTimeout;
+    private final long acquireTimeout;
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    PooledConnectionSource(
+        final String url, final DatabaseConfiguration config
+    ) throws SQLException {
+        super(url, config.getUsername(), config.getPassword());
+
+        minSize = Math.max(0, config.getPoolMinSize());
+        maxSize = Math.max(1, config.getPoolMaxSize());
+        validationQuery = config.getPoolValidationQuery();
+        idleTimeout = config.getPoolIdleTimeout();
+        acquireTimeout = config.getPoolAcquireTimeout();
+        permits = new Semaphore(maxSize, true);
+
+        super.setMaxConnectionsFree(maxSize);
+        super.setMaxConnectionAgeMillis(
+            config.getPoolMaxLifetime() > 0 ? config.getPoolMaxLifetime() : Long.MAX_VALUE
+        );
+        super.setCheckConnectionsEveryMillis(
+            idleTimeout > 0 ? Math.max(1_000, idleTimeout / 2) : 30_000
+        );
+
+        warmUp();
+    }
+
+    /** Opens minimal amount of connections. */
+    private void warmUp() throws SQLException {
+        DatabaseConnection[] connections = new DatabaseConnection[Math.min(minSize, maxSize)];
+
+        try {
+            for (int i = 0; i < connections.length; i++) {
+                connections[i] = getReadWriteConnection(null);
+            }
+        } finally {
+            for (DatabaseConnection connection : connections) {
+                if (connection != null) {
+                    releaseConnection(connection);
+                }
+            }
+        }
+    }
+
+    @Override public DatabaseConnection getReadWriteConnection(final String tableName)
+            throws SQLException {
+        // nested call inside transaction: connection is already taken
+        if (super.getSavedConnection() != null)
+            return super.getReadWriteConnection(tableName);
+
+        acquire();
+
+        try {
+            return super.getReadWriteConnection(tableName);
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override public void releaseConnection(final DatabaseConnection connection)
+            throws SQLException {
+        if (super.isSavedConnection(connection)) {
+            super.releaseConnection(connection);
+            return;
+        }
+
+        try {
+            super.releaseConnection(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        long start = nanoTime();
+
+        try {
+            if (!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS))
+                throw new SQLException(String.format(
+                    "No free connection in pool after %d ms, max size is %d",
+                    acquireTimeout, maxSize
+                ));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for connection", ex);
+        }
+
+        long wait = nanoTime() - start;
+        acquired.incrementAndGet();
+        totalWaitNanos.addAndGet(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+    }
+
+    @Override protected boolean testConnection(final ConnectionMetaData connection) {
+        boolean isIdleTooLong = (idleTimeout > 0)
+                && ((currentTimeMillis() - connection.getLastUsed()) > idleTimeout)
+                && (super.getCurrentConnectionsManaged() > minSize);
+
+        if (isIdleTooLong)
+            return false;
+
+        if ((validationQuery == null) || validationQuery.isEmpty())
+            return super.testConnection(connection);
+
+        try {
+            connection.connection.queryForLong(validationQuery);
+            return true;
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /** @return current pool statistics. */
+    PoolStatistics statistics() {
+        int idle = super.getCurrentConnectionsFree();
+        long acquired = this.acquired.get();
+
+        return new PoolStatistics(
+            super.getCurrentConnectionsManaged() - idle,
+            idle,
+            permits.getQueueLength(),
+            maxSize,
+            acquired == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / acquired),
+            TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get())
+        );
+    }
+}
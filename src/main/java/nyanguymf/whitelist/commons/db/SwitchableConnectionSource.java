@@ -0,0 +1,273 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.db;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+/**
+ * Connection source which delegates to replaceable source.
+ * <p>
+ * DAOs are bound to connection source they were created with,
+ * so this wrapper lets {@link DatabaseManager} reconnect without
+ * re-creating them. Every connection is released to the source
+ * it was taken from, and transaction stays on the source it
+ * was started on. Replaced source is closed once all its
+ * connections are released.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class SwitchableConnectionSource implements ConnectionSource {
+    private final Map<DatabaseConnection, Lease> leases = new ConcurrentHashMap<>();
+    private final ThreadLocal<Delegate> pinned = new ThreadLocal<>();
+    private volatile Delegate delegate;
+
+    SwitchableConnectionSource(final ConnectionSource delegate) {
+        this.delegate = new Delegate(delegate);
+    }
+
+    /**
+     * Replaces delegate source if it's still the expected one.
+     * <p>
+     * Previous delegate is closed as soon as connections
+     * taken from it are released.
+     *
+     * @param   expected    Delegate caller thinks is current.
+     * @param   delegate    New delegate.
+     * @return <tt>true</tt> if delegate was replaced.
+     */
+    synchronized boolean switchFrom(final ConnectionSource expected, final ConnectionSource delegate) {
+        Delegate previous = this.delegate;
+
+        if (previous.source != expected)
+            return false;
+
+        this.delegate = new Delegate(delegate);
+        previous.retire();
+        return true;
+    }
+
+    /** @return current delegate. */
+    ConnectionSource getDelegate() {
+        return delegate.source;
+    }
+
+    @Override public DatabaseConnection getReadOnlyConnection(final String tableName)
+            throws SQLException {
+        Delegate owner = lease();
+
+        try {
+            return track(owner.source.getReadOnlyConnection(tableName), owner);
+        } catch (SQLException | RuntimeException ex) {
+            owner.release();
+            throw ex;
+        }
+    }
+
+    @Override public DatabaseConnection getReadWriteConnection(final String tableName)
+            throws SQLException {
+        Delegate owner = lease();
+
+        try {
+            return track(owner.source.getReadWriteConnection(tableName), owner);
+        } catch (SQLException | RuntimeException ex) {
+            owner.release();
+            throw ex;
+        }
+    }
+
+    @Override public void releaseConnection(final DatabaseConnection connection)
+            throws SQLException {
+        Delegate[] owner = new Delegate[1];
+        leases.computeIfPresent(connection, (key, lease) -> {
+            owner[0] = lease.owner;
+            return lease.decrement();
+        });
+
+        if (owner[0] == null) {
+            // not taken through this source
+            current().source.releaseConnection(connection);
+            return;
+        }
+
+        try {
+            owner[0].source.releaseConnection(connection);
+        } finally {
+            owner[0].release();
+        }
+    }
+
+    @Override public boolean saveSpecialConnection(final DatabaseConnection connection)
+            throws SQLException {
+        Delegate owner = ownerOf(connection);
+        boolean isSaved = owner.source.saveSpecialConnection(connection);
+
+        if (isSaved) {
+            pinned.set(owner);
+        }
+
+        return isSaved;
+    }
+
+    @Override public void clearSpecialConnection(final DatabaseConnection connection) {
+        ownerOf(connection).source.clearSpecialConnection(connection);
+        pinned.remove();
+    }
+
+    @Override public DatabaseConnection getSpecialConnection(final String tableName) {
+        return current().source.getSpecialConnection(tableName);
+    }
+
+    @Override public void closeQuietly() {
+        delegate.source.closeQuietly();
+    }
+
+    @Override public void close() throws IOException {
+        delegate.source.close();
+    }
+
+    @Override public DatabaseType getDatabaseType() {
+        return delegate.source.getDatabaseType();
+    }
+
+    @Override public boolean isOpen(final String tableName) {
+        return current().source.isOpen(tableName);
+    }
+
+    @Override public boolean isSingleConnection(final String tableName) {
+        return current().source.isSingleConnection(tableName);
+    }
+
+    /** @return delegate of current transaction or current delegate. */
+    private Delegate current() {
+        Delegate owner = pinned.get();
+        return owner == null ? delegate : owner;
+    }
+
+    /** Takes usage of current delegate which isn't retired yet. */
+    private Delegate lease() {
+        Delegate owner = pinned.get();
+
+        if (owner != null) {
+            owner.acquire();
+            return owner;
+        }
+
+        while (true) {
+            owner = delegate;
+            owner.acquire();
+
+            if (!owner.isRetired())
+                return owner;
+
+            // switched between read and acquire
+            owner.release();
+        }
+    }
+
+    private DatabaseConnection track(final DatabaseConnection connection, final Delegate owner) {
+        leases.compute(connection, (key, value) -> value == null ? new Lease(owner) : value.increment());
+        return connection;
+    }
+
+    private Delegate ownerOf(final DatabaseConnection connection) {
+        Lease lease = leases.get(connection);
+        return lease == null ? current() : lease.owner;
+    }
+
+    /**
+     * Connection taken from delegate.
+     * <p>
+     * The same connection is returned more than once if it's
+     * saved for transaction or if source has single connection,
+     * so times it was taken are counted.
+     */
+    private static final class Lease {
+        private final Delegate owner;
+        private final int count;
+
+        Lease(final Delegate owner) {
+            this(owner, 1);
+        }
+
+        private Lease(final Delegate owner, final int count) {
+            this.owner = owner;
+            this.count = count;
+        }
+
+        Lease increment() {
+            return new Lease(owner, count + 1);
+        }
+
+        /** @return decremented lease or <tt>null</tt> if it's the last one. */
+        Lease decrement() {
+            return count == 1 ? null : new Lease(owner, count - 1);
+        }
+    }
+
+    /** Delegate source with count of connections taken from it. */
+    private static final class Delegate {
+        private final ConnectionSource source;
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicBoolean isClosed = new AtomicBoolean();
+        private volatile boolean isRetired;
+
+        Delegate(final ConnectionSource source) {
+            this.source = source;
+        }
+
+        void acquire() {
+            inUse.incrementAndGet();
+        }
+
+        void release() {
+            if (inUse.decrementAndGet() == 0) {
+                closeIfRetired();
+            }
+        }
+
+        boolean isRetired() {
+            return isRetired;
+        }
+
+        /** Marks source as replaced, it's closed when unused. */
+        void retire() {
+            isRetired = true;
+            closeIfRetired();
+        }
+
+        private void closeIfRetired() {
+            if (isRetired && (inUse.get() == 0) && isClosed.compareAndSet(false, true)) {
+                source.closeQuietly();
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.commons.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel which holds deadlines of keys.
+ * <p>
+ * Wheel has {@value #LEVELS} levels of {@value #SLOTS} slots,
+ * slot of level <tt>n</tt> spans <tt>64<sup>n</sup></tt> ticks.
+ * Deadline is put into the level of the highest tick digit in
+ * which it differs from current tick, so advancing by one tick
+ * costs O(1) amortized: only one slot is fired and at most one
+ * slot per level is cascaded to lower levels.
+ * <p>
+ * Deadlines beyond wheel range are kept in overflow list and
+ * re-inserted every time the top level makes full turn.
+ * <p>
+ * All methods are thread-safe.
+ *
+ * @param   <K>     Type of key.
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class TimingWheel<K> {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final Node<K>[][] slots = newSlots();
+    private final Node<K> overflow = new Node<>(null, 0);
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private final long tickMillis;
+    private long currentTick;
+
+    /**
+     * @param   tickMillis  Duration of one tick in milliseconds.
+     * @param   now         Current time in epoch millis.
+     */
+    public TimingWheel(final long tickMillis, final long now) {
+        this.tickMillis = tickMillis;
+        currentTick = now / tickMillis;
+        overflow.prev = overflow.next = overflow;
+    }
+
+    /**
+     * Schedules deadline for given key, replacing previous one.
+     *
+     * @param   key         Key to schedule.
+     * @param   deadline    Deadline in epoch millis.
+     */
+    public synchronized void schedule(final K key, final long deadline) {
+        Node<K> node = nodes.remove(key);
+
+        if (node != null) {
+            unlink(node);
+        }
+
+        // round up: key mustn't fire before its deadline
+        node = new Node<>(key, (deadline + tickMillis - 1) / tickMillis);
+        nodes.put(key, node);
+        insert(node);
+    }
+
+    /**
+     * Cancels deadline of given key.
+     *
+     * @return <tt>true</tt> if key was scheduled.
+     */
+    public synchronized boolean cancel(final K key) {
+        Node<K> node = nodes.remove(key);
+
+        if (node == null)
+            return false;
+
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Advances wheel to given time.
+     *
+     * @param   now     Current time in epoch millis.
+     * @return keys which deadlines passed, never <tt>null</tt>.
+     */
+    public List<K> advance(final long now) {
+        List<K> expired = new ArrayList<>(0);
+        long targetTick = now / tickMillis;
+
+        synchronized (this) {
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                fire(slots[0][(int) (currentTick & SLOT_MASK)], expired);
+            }
+        }
+
+        return expired;
+    }
+
+    /** @return amount of scheduled keys. */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /** Removes all scheduled keys. */
+    public synchronized void clear() {
+        for (Node<K>[] level : slots) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = null;
+            }
+        }
+        overflow.prev = overflow.next = overflow;
+        nodes.clear();
+    }
+
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+
+            if ((currentTick & ((1L << shift) - 1)) != 0)
+                return;
+
+            int slot = (int) ((currentTick >>> shift) & SLOT_MASK);
+            Node<K> head = slots[level][slot];
+            slots[level][slot] = null;
+            reinsert(head, null);
+        }
+
+        if ((currentTick & ((1L << (LEVELS * SLOT_BITS)) - 1)) == 0) {
+            Node<K> head = overflow.next;
+            overflow.prev = overflow.next = overflow;
+            reinsert(head, overflow);
+        }
+    }
+
+    /** Re-inserts list starting at given node until terminator. */
+    private void reinsert(Node<K> node, final Node<K> terminator) {
+        while ((node != null) && (node != terminator)) {
+            Node<K> next = node.next;
+            node.prev = node.next = null;
+            insert(node);
+            node = next;
+        }
+    }
+
+    private void fire(Node<K> node, final List<K> expired) {
+        while (node != null) {
+            Node<K> next = node.next;
+
+            if (node.deadlineTick <= currentTick) {
+                unlink(node);
+                nodes.remove(node.key);
+                expired.add(node.key);
+            }
+            node = next;
+        }
+    }
+
+    private void insert(final Node<K> node) {
+        if (node.deadlineTick <= currentTick) {
+            // already expired: fire on next tick
+            node.deadlineTick = currentTick + 1;
+        }
+
+        long difference = node.deadlineTick ^ currentTick;
+
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = (level + 1) * SLOT_BITS;
+
+            if ((difference >>> shift) == 0) {
+                int slot = (int) ((node.deadlineTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+                link(node, level, slot);
+                return;
+            }
+        }
+
+        node.level = -1;
+        node.next = overflow.next;
+        node.prev = overflow;
+        overflow.next.prev = node;
+        overflow.next = node;
+    }
+
+    private void link(final Node<K> node, final int level, final int slot) {
+        Node<K> head = slots[level][slot];
+
+        node.level = level;
+        node.slot = slot;
+        node.prev = null;
+        node.next = head;
+
+        if (head != null) {
+            head.prev = node;
+        }
+        slots[level][slot] = node;
+    }
+
+    private void unlink(final Node<K> node) {
+        if (node.level < 0) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+        } else {
+            if (node.prev == null) {
+                slots[node.level][node.slot] = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            }
+        }
+
+        node.prev = node.next = null;
+    }
+
+    /** @return empty slots of all levels. */
+    @SuppressWarnings("unchecked")
+    private static <K> Node<K>[][] newSlots() {
+        // generic array can't be created, slots only ever hold nodes of K
+        return (Node<K>[][]) new Node<?>[LEVELS][SLOTS];
+    }
+
+    private static final class Node<K> {
+        private final K key;
+        private long deadlineTick;
+        private int level;
+        private int slot;
+        private Node<K> prev;
+        private Node<K> next;
+
+        private Node(final K key, final long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core;
+
+import static java.lang.System.currentTimeMillis;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import nyanguymf.whitelist.commons.scheduler.TimingWheel;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+import nyanguymf.whitelist.core.db.WhitelistIndex.Entry;
+import nyanguymf.whitelist.core.db.WhitelistIndex.Verdict;
+import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+
+/**
+ * Revokes temporal whitelists within about one second
+ * after their deadline.
+ * <p>
+ * Every active deadline is held in {@link TimingWheel}, which
+ * is filled from {@link WhitelistIndex} on start and then
+ * follows index changes.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class ExpiryScheduler implements Closeable {
+    private static final long TICK_MILLIS = 1_000;
+
+    private final TimingWheel<UUID> wheel = new TimingWheel<>(TICK_MILLIS, currentTimeMillis());
+    private final WhitelistManager whManager;
+    private final KickScheduler kicks;
+    private Plugin plugin;
+    private BukkitTask tickTask;
+
+    ExpiryScheduler(final WhitelistManager whManager, final KickScheduler kicks) {
+        this.whManager = whManager;
+        this.kicks = kicks;
+    }
+
+    /** Loads deadlines from index and starts ticking every second. */
+    void start(final Plugin plugin) {
+        this.plugin = plugin;
+
+        WhitelistIndex.setListener(this::onUpdate);
+        WhitelistIndex.forEach(this::onUpdate);
+
+        tickTask = plugin.getServer().getScheduler().runTaskTimer(
+            plugin, this::tick, 20, 20
+        );
+    }
+
+    private void onUpdate(final UUID uuid, final Entry entry) {
+        if ((entry != null) && entry.isWhitelisted() && (entry.getUntil() != 0)) {
+            wheel.schedule(uuid, entry.getUntil());
+        } else {
+            wheel.cancel(uuid);
+        }
+    }
+
+    private void tick() {
+        long now = currentTimeMillis();
+        List<UUID> expired = wheel.advance(now);
+
+        if (expired.isEmpty())
+            return;
+
+        List<UUID> revoked = new ArrayList<>(expired.size());
+        for (UUID uuid : expired) {
+            if (WhitelistIndex.verdict(uuid, now) == Verdict.EXPIRED) {
+                revoked.add(uuid);
+            }
+        }
+
+        if (revoked.isEmpty())
+            return;
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(
+            plugin, () -> WhitelistedPlayer.revokeExpired(revoked, new Date(now))
+        );
+
+        if (!PluginSettings.current().isKickOnline() || !whManager.isWhitelistEnabled())
+            return;
+
+        kicks.kick(revoked);
+    }
+
+    /** @return amount of scheduled deadlines. */
+    int size() {
+        return wheel.size();
+    }
+
+    @Override public void close() {
+        WhitelistIndex.setListener(null);
+
+        if (tickTask != null) {
+            tickTask.cancel();
+        }
+        wheel.clear();
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core;
+
+import static java.lang.System.currentTimeMillis;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+import nyanguymf.whitelist.core.db.WhitelistIndex.Verdict;
+import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+
+/**
+ * Kicks online players who aren't whitelisted.
+ * <p>
+ * Online players are checked at once: by {@link WhitelistIndex}
+ * if it's loaded or by single database query off the main thread.
+ * Players to kick are queued and kicked by limited batches every
+ * tick, so hundreds of kicks don't stall one tick. Each player is
+ * checked again right before kick, so players whitelisted while
+ * waiting stay online.
+ * <p>
+ * Queue is accessed only from main thread.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class KickScheduler implements Closeable {
+    private final Set<UUID> queue = new LinkedHashSet<>();
+    private final MessagesManager messages;
+    private final WhitelistManager whManager;
+    private final int kicksPerTick;
+    private Plugin plugin;
+    private BukkitTask kickTask;
+
+    /**
+     * @param   kicksPerTick    Max amount of players kicked in one tick.
+     */
+    KickScheduler(
+        final MessagesManager messages, final WhitelistManager whManager, final int kicksPerTick
+    ) {
+        this.messages = messages;
+        this.whManager = whManager;
+        this.kicksPerTick = Math.max(1, kicksPerTick);
+    }
+
+    void start(final Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Checks all online players and queues kick of those
+     * who aren't whitelisted, if whitelist is enabled.
+     * <p>
+     * Can be called from any thread.
+     */
+    void kickNotWhitelisted() {
+        if (!Bukkit.isPrimaryThread()) {
+            plugin.getServer().getScheduler().runTask(plugin, this::kickNotWhitelisted);
+            return;
+        }
+
+        if (!whManager.isWhitelistEnabled())
+            return;
+
+        List<UUID> online = new ArrayList<>();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            online.add(player.getUniqueId());
+        }
+
+        if (online.isEmpty())
+            return;
+
+        if (WhitelistIndex.isLoaded()) {
+            kick(online);
+            return;
+        }
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            Set<UUID> denied;
+            try {
+                denied = notWhitelisted(online);
+            } catch (SQLException ex) {
+                System.err.printf("Unable to check online players: %s\n", ex.getLocalizedMessage());
+                return;
+            }
+
+            plugin.getServer().getScheduler().runTask(plugin, () -> kick(denied));
+        });
+    }
+
+    /** Gets players from given ones who aren't whitelisted according to database. */
+    private static Set<UUID> notWhitelisted(final Collection<UUID> uuids) throws SQLException {
+        Set<UUID> denied = new HashSet<>(uuids);
+        long now = currentTimeMillis();
+
+        for (WhitelistedPlayer player : WhitelistedPlayer.findByIds(uuids)) {
+            if (player.isWhitelisted() && ((player.getUntil() == 0) || (player.getUntil() > now))) {
+                denied.remove(player.getUniqueId());
+            }
+        }
+
+        return denied;
+    }
+
+    /**
+     * Queues kick of given players, must be called on main thread.
+     * <p>
+     * If whitelist index is loaded, players who are whitelisted
+     * by the time of kick are skipped, otherwise all given
+     * players are kicked.
+     */
+    void kick(final Collection<UUID> uuids) {
+        queue.addAll(uuids);
+
+        if ((kickTask == null) && !queue.isEmpty()) {
+            kickTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1, 1);
+        }
+    }
+
+    private void tick() {
+        if (!whManager.isWhitelistEnabled()) {
+            // whitelist was disabled while players were waiting
+            stop();
+            return;
+        }
+
+        long now = currentTimeMillis();
+        int kicked = 0;
+        Iterator<UUID> iterator = queue.iterator();
+
+        while (iterator.hasNext() && (kicked < kicksPerTick)) {
+            UUID uuid = iterator.next();
+            iterator.remove();
+
+            Player player = plugin.getServer().getPlayer(uuid);
+            if ((player == null) || isAllowed(uuid, now)) {
+                continue;
+            }
+
+            player.kickPlayer(messages.info("not-whitelisted"));
+            kicked++;
+        }
+
+        if (queue.isEmpty()) {
+            stop();
+        }
+    }
+
+    private static boolean isAllowed(final UUID uuid, final long now) {
+        return WhitelistIndex.isLoaded() && (WhitelistIndex.verdict(uuid, now) == Verdict.ALLOWED);
+    }
+
+    /** @return amount of players waiting for kick. */
+    int size() {
+        return queue.size();
+    }
+
+    private void stop() {
+        queue.clear();
+
+        if (kickTask != null) {
+            kickTask.cancel();
+            kickTask = null;
+        }
+    }
+
+    @Override public void close() {
+        stop();
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core;
+
+import static java.lang.System.currentTimeMillis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+
+/**
+ * Names of players who have ever joined the server.
+ * <p>
+ * {@link Bukkit#getOfflinePlayers()} reads every player data
+ * file, so it's called only once, asynchronously on startup.
+ * After that index is updated on join. Ids of loaded players
+ * are passed to name cache of {@link WhitelistIndex}.
+ * <p>
+ * Names are case-insensitive: existence check is hash lookup
+ * and prefix lookup is range of sorted lower case names.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class KnownPlayersIndex implements Listener {
+    /** Lower case name to name as player has it. */
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final NavigableSet<String> sortedNames = new ConcurrentSkipListSet<>();
+    private volatile boolean isLoaded = false;
+
+    /** Adds all offline players into index, may take long time. */
+    public void load() {
+        long start = currentTimeMillis();
+
+        for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
+            add(player.getName());
+
+            if (player.getName() != null) {
+                WhitelistIndex.remember(player.getName(), player.getUniqueId());
+            }
+        }
+        isLoaded = true;
+
+        System.out.printf(
+            "Indexed %d known players in %d ms.\n", size(), currentTimeMillis() - start
+        );
+    }
+
+    @EventHandler(priority=EventPriority.MONITOR)
+    public void onJoin(final PlayerJoinEvent event) {
+        add(event.getPlayer().getName());
+    }
+
+    /** Adds player with given name into index. */
+    public void add(final String playerName) {
+        if (playerName == null)
+            return;
+
+        String key = playerName.toLowerCase(Locale.ROOT);
+
+        if (names.put(key, playerName) == null) {
+            sortedNames.add(key);
+        }
+    }
+
+    /**
+     * Checks if player with given name ever joined server.
+     * <p>
+     * Check ignores case of name.
+     */
+    public boolean isKnown(final String playerName) {
+        return names.containsKey(playerName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets names of known players which start with given prefix
+     * ignoring case, in alphabetical order.
+     *
+     * @param   prefix  Prefix of names.
+     * @param   limit   Max amount of names to return.
+     * @return list of names.
+     */
+    public List<String> startingWith(final String prefix, final int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+
+        for (String name : sortedNames.tailSet(key)) {
+            if ((result.size() >= limit) || !name.startsWith(key))
+                break;
+
+            String playerName = names.get(name);
+            if (playerName != null) {
+                result.add(playerName);
+            }
+        }
+
+        return result;
+    }
+
+    /** Checks if all offline players were indexed. */
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+
+    /** Gets amount of known players. */
+    public int size() {
+        return names.size();
+    }
+
+    public void register(final JavaPlugin plugin) {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, this::load);
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message parsed once into literal segments and slots.
+ * <p>
+ * Slots are positional (<tt>{0}</tt>, <tt>{1}</tt>, ...) or
+ * named (<tt>{player-name}</tt>). Named slots are turned into
+ * positional ones on compilation: name's index in given names
+ * array is its position. Placeholders which don't match any
+ * slot are left in message as is.
+ * <p>
+ * Color codes are translated and <tt>\n</tt> escapes are
+ * turned into line breaks in literal segments on compilation,
+ * so rendering is single pass over segments without any
+ * replaces.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class MessageTemplate {
+    private static final int MAX_POSITION_DIGITS = 4;
+
+    /** Literal segments, there is always one more segment than slots. */
+    private final String[] literals;
+    /** Argument position for each slot. */
+    private final int[] positions;
+    /** Original text of each slot, used if argument is missing. */
+    private final String[] placeholders;
+    private final int literalsLength;
+
+    private MessageTemplate(
+        final String[] literals, final int[] positions, final String[] placeholders
+    ) {
+        this.literals = literals;
+        this.positions = positions;
+        this.placeholders = placeholders;
+
+        int literalsLength = 0;
+        for (String literal : literals) {
+            literalsLength += literal.length();
+        }
+        this.literalsLength = literalsLength;
+    }
+
+    /**
+     * Compiles given message.
+     * <p>
+     * Returns <tt>null</tt> if given message is <tt>null</tt>.
+     *
+     * @param   message     Message to compile.
+     * @param   names       Names of named slots in order of
+     *      their arguments.
+     * @return compiled message or <tt>null</tt>.
+     */
+    public static MessageTemplate compile(final String message, final String... names) {
+        if (message == null)
+            return null;
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(message.length());
+
+        int index = 0;
+        while (index < message.length()) {
+            char character = message.charAt(index);
+
+            if (character == '{') {
+                int end = message.indexOf('}', index + 1);
+                int position = (end == -1) ? -1 : position(message, index + 1, end, names);
+
+                if (position != -1) {
+                    literals.add(literal.toString());
+                    positions.add(position);
+                    placeholders.add(message.substring(index, end + 1));
+                    literal.setLength(0);
+                    index = end + 1;
+                    continue;
+                }
+            }
+
+            if (character == '&') {
+                literal.append('\u00a7');
+            } else if ((character == '\\') && message.startsWith("n", index + 1)) {
+                literal.append('\n');
+                index++;
+            } else {
+                literal.append(character);
+            }
+            index++;
+        }
+        literals.add(literal.toString());
+
+        int[] positionsArray = new int[positions.size()];
+        for (int slot = 0; slot < positionsArray.length; slot++) {
+            positionsArray[slot] = positions.get(slot);
+        }
+
+        return new MessageTemplate(
+            literals.toArray(new String[0]), positionsArray,
+            placeholders.toArray(new String[0])
+        );
+    }
+
+    /** Gets argument position of slot between given indexes, -1 if it isn't slot. */
+    private static int position(
+        final String message, final int start, final int end, final String[] names
+    ) {
+        if ((end > start) && (end - start <= MAX_POSITION_DIGITS)) {
+            int position = 0;
+
+            for (int index = start; index < end; index++) {
+                char digit = message.charAt(index);
+
+                if ((digit < '0') || (digit > '9')) {
+                    position = -1;
+                    break;
+                }
+                position = position * 10 + (digit - '0');
+            }
+
+            if (position != -1)
+                return position;
+        }
+
+        for (int position = 0; position < names.length; position++) {
+            if (message.regionMatches(start, names[position], 0, end - start)
+                    && (names[position].length() == end - start))
+                return position;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Renders message with given arguments.
+     * <p>
+     * Slot is left as is if there is no argument for it
+     * or argument is <tt>null</tt>.
+     *
+     * @param   args    Arguments to insert in slots.
+     * @return rendered message.
+     */
+    public String render(final String... args) {
+        if (positions.length == 0)
+            return literals[0];
+
+        int length = literalsLength;
+        for (int slot = 0; slot < positions.length; slot++) {
+            length += argument(slot, args).length();
+        }
+
+        StringBuilder builder = new StringBuilder(length);
+        builder.append(literals[0]);
+        for (int slot = 0; slot < positions.length; slot++) {
+            builder.append(argument(slot, args)).append(literals[slot + 1]);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Renders message with given numeric arguments.
+     * <p>
+     * Slot is left as is if there is no argument for it.
+     *
+     * @param   args    Arguments to insert in slots.
+     * @return rendered message.
+     */
+    public String renderNumbers(final long... args) {
+        if (positions.length == 0)
+            return literals[0];
+
+        StringBuilder builder = new StringBuilder(literalsLength + positions.length * 4);
+        builder.append(literals[0]);
+        for (int slot = 0; slot < positions.length; slot++) {
+            if (positions[slot] < args.length) {
+                builder.append(args[positions[slot]]);
+            } else {
+                builder.append(placeholders[slot]);
+            }
+            builder.append(literals[slot + 1]);
+        }
+
+        return builder.toString();
+    }
+
+    private String argument(final int slot, final String[] args) {
+        if ((positions[slot] < args.length) && (args[positions[slot]] != null))
+            return args[positions[slot]];
+
+        return placeholders[slot];
+    }
+}
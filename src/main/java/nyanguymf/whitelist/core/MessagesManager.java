@@ -17,20 +17,20 @@
 package nyanguymf.whitelist.core;
 
 import static java.lang.String.format;
-import static java.util.stream.Collectors.toList;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.FileSystemException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -40,6 +40,16 @@ import de.exlll.configlib.configs.yaml.BukkitYamlConfiguration;
 public class MessagesManager extends BukkitYamlConfiguration {
     private static MessagesManager ignoreInstance;
 
+    /** Names of named slots of messages, in order of their arguments. */
+    private static final Map<String, String[]> SLOT_NAMES = ImmutableMap.of(
+        "until", new String[] {"year", "month", "day", "hour", "min", "sec"},
+        "player-info", new String[] {"player-name", "is-whitelisted", "until"}
+    );
+
+    /** Messages compiled from the last successfully loaded file. */
+    private volatile Snapshot ignoreSnapshot;
+    private volatile File ignoreFile;
+
     private Map<String, List<String>> multilineMessages = new HashMap<>();
 
     /**
@@ -72,6 +82,7 @@ public class MessagesManager extends BukkitYamlConfiguration {
 
     private Map<String, String> info = ImmutableMap.<String, String>builder()
             .put("player-not-found-warn", "&eWarning! Player &6«&c{0}&6» &enot found.")
+            .put("players-not-found-warn", "&eWarning! &6{0} &eplayers not found: &c{1}")
             .put("whitelisted", "&ePlayer &c{0} &esuccessfully added to whitelist.")
             .put("player-removed", "&ePlayer &6«&c{0}&6»&e removed from whitelist")
             .put("already-enabled", "&eWhitelist is already &aenabled&e.")
@@ -91,12 +102,72 @@ public class MessagesManager extends BukkitYamlConfiguration {
                 "whitelisted-until",
                 "&ePlayer &c{0} &esuccessfully added to whitelist until {1}."
             )
+            .put(
+                "write-behind-stats",
+                "&eUnknown players: &6{0} &epending, &6{1} &eflushed, "
+                + "&6{2} &ededuped, &6{3} &edropped."
+            )
+            .put(
+                "login-filter-stats",
+                "&eLogin filter: &6{0} KiB&e, &6{1} &ehashes, &6{2}% &efalse positives, "
+                + "&6{3} &erejected without lookup."
+            )
+            .put(
+                "pool-stats",
+                "&eDatabase pool: &6{0} &eactive, &6{1} &eidle of &6{2}&e, "
+                + "&6{3} &ewaiting, &6{4}ms &eavg wait, &6{5}ms &emax wait."
+            )
+            .put(
+                "command-stats",
+                "&eCommand &6{0}&e: &6{1} &eexecuted, &6{2} &efailed, "
+                + "&6{3}ms &eavg, &6{4}ms &emax."
+            )
+            .put(
+                "batch-whitelisted",
+                "&eAdded &6{0} &eplayers to whitelist: &6{1} &enew, &6{2} &eupdated."
+            )
+            .put(
+                "batch-whitelisted-until",
+                "&eAdded &6{0} &eplayers to whitelist until {3}: &6{1} &enew, &6{2} &eupdated."
+            )
+            .put("batch-removed", "&eRemoved &6{0} &eplayers from whitelist, &6{1} &enot found.")
+            .put("list-header", "&eWhitelisted players, page &6{0}&e:")
+            .put("list-entry", "&6{0} &e- {1}")
+            .put("list-permanent", "&apermanent")
+            .put("list-next-page", "&eNext page: &6/wh {0} {1}")
+            .put("list-empty", "&eNo players found.")
+            .put("import-started", "&eImporting players from &6{0}&e...")
+            .put("import-progress", "&eImported &6{0} &eplayers, &6{1} &eplayers/s...")
+            .put(
+                "import-finished",
+                "&eImported &6{0} &eplayers in &6{1}s &e(&6{2} &eplayers/s)."
+            )
+            .put("export-started", "&eExporting players to &6{0}&e...")
+            .put("export-progress", "&eExported &6{0} &eplayers, &6{1} &eplayers/s...")
+            .put(
+                "export-finished",
+                "&eExported &6{0} &eplayers to &6{1} &ein &6{2}s &e(&6{3} &eplayers/s)."
+            )
             .build();
 
     private Map<String, String> error = ImmutableMap.<String,String>builder()
             .put("no-permission", "&cYou have no permission for &6{0} &ccommand.")
             .put("invalid-time-format", "&cYou've entered invalid time format: {0}.")
             .put("player-doesnt-exists", "&cPlayer &6{0} &cnot found.")
+            .put("group-not-found", "&cGroup &6@{0} &cnot found in config.")
+            .put("invalid-player-name", "&cInvalid player name: &6{0}&c.")
+            .put("database-error", "&cUnable to update whitelist, see console for details.")
+            .put("query-failed", "&cUnable to query whitelist, see console for details.")
+            .put("invalid-page", "&cInvalid page number: &6{0}&c.")
+            .put("invalid-file-path", "&cFile &6{0} &cis outside of plug-in folder.")
+            .put(
+                "unsupported-file-format",
+                "&cUnsupported format of &6{0}&c, use &6.csv &cor &6.ndjson &cfile."
+            )
+            .put("file-not-found", "&cFile &6{0} &cnot found in plug-in folder.")
+            .put("transfer-running", "&cOther import or export is already running.")
+            .put("import-failed", "&cImport failed, no players were changed: {0}")
+            .put("export-failed", "&cExport failed: {0}")
             .build();
 
     /**
@@ -132,6 +203,8 @@ public class MessagesManager extends BukkitYamlConfiguration {
             .build()
         );
 
+        ignoreFile = messagesFile;
+
         multilineMessages.put("player-info", Arrays.asList(
             "&ePlayer &6«&c{player-name}&6»",
             "&eIs whitelisted: {is-whitelisted}",
@@ -142,15 +215,31 @@ public class MessagesManager extends BukkitYamlConfiguration {
             "whitelist",
             ImmutableMap.<String,String>builder()
                 .put("whitelist", "&eEnter &c/help &efor more info.")
-                .put("add", "&e/wh add &6«&cplayer&6»")
-                .put("remove", "&e/wh remove &6«&cplayer&6»")
+                .put("add", "&e/wh add &6«&cplayer|@group&6»... [&ctime&6]")
+                .put("remove", "&e/wh remove &6«&cplayer|@group&6»...")
                 .put("enable", "&e/wh enable|on")
                 .put("disable", "&e/wh disable|off")
+                .put("stats", "&e/wh stats")
+                .put("list", "&e/wh list [&cpermanent&6|&cexpiring &6«&ctime&6»] [&cpage&6]")
+                .put("search", "&e/wh search &6«&cname&6» [&cpage&6]")
+                .put("import", "&e/wh import &6«&cfile&6»")
+                .put("export", "&e/wh export &6«&cfile&6»")
                 .build()
         );
     }
 
-    protected static MessagesManager getInstance(
+    /**
+     * Loads messages of given language from plug-in folder.
+     * <p>
+     * Falls back to English messages, which file is created
+     * if it doesn't exist.
+     *
+     * @param   pluginFolder    Folder of messages files.
+     * @param   lang            Language code, e.g. <tt>en</tt>.
+     * @return loaded messages.
+     * @throws IOException if English messages file can't be created.
+     */
+    public static MessagesManager getInstance(
         final File pluginFolder, final String lang
     ) throws IOException {
         File messagesFile = new File(pluginFolder, format("messages_%s.yml", lang));
@@ -160,12 +249,15 @@ public class MessagesManager extends BukkitYamlConfiguration {
             messagesFile.createNewFile();
             MessagesManager.ignoreInstance = new MessagesManager(messagesFile);
             MessagesManager.ignoreInstance.save();
+            MessagesManager.ignoreInstance.compile();
             return MessagesManager.ignoreInstance;
         }
 
         try {
             MessagesManager.ignoreInstance = new MessagesManager(messagesFile);
-            MessagesManager.ignoreInstance.loadAndSave();
+            MessagesManager.ignoreInstance.load();
+            MessagesManager.ignoreInstance.mergeDefaults(new MessagesManager(messagesFile));
+            MessagesManager.ignoreInstance.save();
         } catch (FileNotFoundException expected) {
             // language file doesn't exists
             System.err.printf("File for «%s» lang not found.\n", lang);
@@ -180,102 +272,180 @@ public class MessagesManager extends BukkitYamlConfiguration {
             return getInstance(pluginFolder, "en");
         }
 
+        MessagesManager.ignoreInstance.compile();
         return MessagesManager.ignoreInstance;
     }
 
     /**
-     * Replaces "{0}", "{1}", "{n}" chunks in given String
-     * with appropriate argument (args[0], args[1], args[n]).
-     * <p>
-     * Example: String <tt>"Hello, {0}! I'm {1} c:"</tt>
-     * with arguments {@code {"Notch", "NyanGuyMF"}} will
-     * be <tt>"Hello, Notch! I'm NyanGuyMF c:"</tt>.
+     * Adds default messages which are missing in loaded file.
      * <p>
-     * Returns <tt>null</tt> if given {@link String} message
-     * is <tt>null</tt>.
+     * ConfigLib replaces whole maps with ones from file, so
+     * messages added in newer versions of plug-in would be
+     * missing in files created by older ones.
      *
-     * @param   message     {@link String} to insert values into it.
-     * @param   args        Values to insert into String.
+     * @param   defaults    Messages which weren't loaded from file.
      */
-    public static String args(String message, final String... args) {
-        if (message == null)
-            return message;
+    private void mergeDefaults(final MessagesManager defaults) {
+        multilineMessages = merge(multilineMessages, defaults.multilineMessages);
+        info = merge(info, defaults.info);
+        error = merge(error, defaults.error);
+        usage = mergeNested(usage, defaults.usage);
+        help = mergeNested(help, defaults.help);
+    }
 
-        if (args.length == 0)
-            return message;
+    private static <T> Map<String, T> merge(
+        final Map<String, T> loaded, final Map<String, T> defaults
+    ) {
+        Map<String, T> merged = (loaded == null) ? new LinkedHashMap<>() : new LinkedHashMap<>(loaded);
+        defaults.forEach(merged::putIfAbsent);
+        return merged;
+    }
 
-        for (int c = 0; c < args.length; c++) {
-            message = message.replace("{" + c + "}", args[c]);
-        }
+    private static Map<String, Map<String, String>> mergeNested(
+        final Map<String, Map<String, String>> loaded,
+        final Map<String, Map<String, String>> defaults
+    ) {
+        Map<String, Map<String, String>> merged = merge(loaded, Collections.emptyMap());
+        defaults.forEach((command, subCommands) ->
+            merged.put(command, merge(merged.get(command), subCommands))
+        );
+        return merged;
+    }
 
-        return message;
+    /** Compiles loaded messages and publishes them to readers. */
+    private void compile() {
+        ignoreSnapshot = new Snapshot(this);
     }
 
     /**
-     * Translates user-friendly colors to default Bukkit colors.
-     * <p>
-     * Simply replaces all '&' characters in given string with
-     * '§' (ua7 in Unicode (u00a7)) character.
+     * Reads messages file again and atomically replaces
+     * messages with new ones.
      * <p>
-     * Returns <tt>null</tt> if given {@link String} message
-     * is <tt>null</tt>.
+     * File is parsed into separate instance, so if it's
+     * invalid, current messages are kept and readers never
+     * see partially loaded messages.
      *
-     * @param   message     {@link String} to translate colors.
+     * @return <tt>true</tt> if messages were reloaded.
      */
-    public static String colored(final String message) {
-        if (message == null)
-            return null;
+    public boolean reload() {
+        return reload(ignoreFile);
+    }
 
-        return message.replace('&', '\u00a7');
+    /**
+     * Switches messages to given language.
+     *
+     * @see #reload()
+     * @return <tt>true</tt> if messages were reloaded.
+     */
+    public boolean reload(final String lang) {
+        File messagesFile = new File(ignoreFile.getParentFile(), format("messages_%s.yml", lang));
+
+        if (!messagesFile.exists()) {
+            System.err.printf("File for «%s» lang not found.\n", lang);
+            return false;
+        }
+
+        return reload(messagesFile);
+    }
+
+    private synchronized boolean reload(final File messagesFile) {
+        try {
+            MessagesManager loaded = new MessagesManager(messagesFile);
+            loaded.load();
+            // file is edited by user now, so it isn't rewritten
+            loaded.mergeDefaults(new MessagesManager(messagesFile));
+            ignoreSnapshot = new Snapshot(loaded);
+            ignoreFile = messagesFile;
+            return true;
+        } catch (Exception ex) {
+            System.err.printf(
+                "Unable to reload messages file «%s»: %s\n",
+                messagesFile.getName(), ex.getLocalizedMessage()
+            );
+            return false;
+        }
+    }
+
+    /** @return name of current messages file. */
+    public String getFileName() {
+        return ignoreFile.getName();
+    }
+
+    private static String[] slotNames(final String key) {
+        return SLOT_NAMES.getOrDefault(key, new String[0]);
     }
 
     /**
-     * Formats string with given time.
+     * Formats given time with <tt>until</tt> message.
      * <p>
-     * Will replace available placeholders in given string
-     * with time.
-     * <p>
-     * List of available placeholders:
-     * <ul>
-     *      <li><tt>{year}</tt></li>
-     *      <li><tt>{month}</tt></li>
-     *      <li><tt>{day}</tt></li>
-     *      <li><tt>{hour}</tt></li>
-     *      <li><tt>{min}</tt></li>
-     *      <li><tt>{sec}</tt></li>
-     * </ul>
+     * Available placeholders are <tt>{year}</tt>, <tt>{month}</tt>,
+     * <tt>{day}</tt>, <tt>{hour}</tt>, <tt>{min}</tt> and <tt>{sec}</tt>.
      *
-     * @param   str     {@link String} that you want to format.
-     * @param   date    Time that you want to insert.
-     * @return formated string.
+     * @param   epochMillis Time that you want to format.
+     * @return formatted time.
      */
-    public static String formatTime(final String str, final Date date) {
+    public String formatTime(final long epochMillis) {
         Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-
-        return str
-                .replace("{year}", String.valueOf(cal.get(Calendar.YEAR)))
-                .replace("{month}", String.valueOf(cal.get(Calendar.MONTH)))
-                .replace("{day}", String.valueOf(cal.get(Calendar.DAY_OF_MONTH)))
-                .replace("{hour}", String.valueOf(cal.get(Calendar.HOUR_OF_DAY)))
-                .replace("{min}", String.valueOf(cal.get(Calendar.MINUTE)))
-                .replace("{sec}", String.valueOf(cal.get(Calendar.SECOND)));
+        cal.setTimeInMillis(epochMillis);
+
+        return ignoreSnapshot.info.get("until").renderNumbers(
+            cal.get(Calendar.YEAR),
+            cal.get(Calendar.MONTH) + 1,
+            cal.get(Calendar.DAY_OF_MONTH),
+            cal.get(Calendar.HOUR_OF_DAY),
+            cal.get(Calendar.MINUTE),
+            cal.get(Calendar.SECOND)
+        );
     }
 
     public List<String> multiline(final String key) {
         return multiline(key, true);
     }
 
-    public List<String> multiline(final String key, final boolean isColored) {
-        if (!multilineMessages.containsKey(key))
+    /**
+     * Gets multiline message with given arguments inserted in it.
+     * <p>
+     * Returns <tt>null</tt> if there aren't message for
+     * given key.
+     *
+     * @param   key     The key of message you want to get.
+     * @param   args    Values to insert into message.
+     * @return Colored lines of message or <tt>null</tt>.
+     */
+    public List<String> multiline(final String key, final String... args) {
+        Snapshot snapshot = ignoreSnapshot;
+
+        if (args.length == 0)
+            return snapshot.renderedMultiline.get(key);
+
+        List<MessageTemplate> templates = snapshot.multiline.get(key);
+        if (templates == null)
             return null;
 
-        if (isColored)
-            return multilineMessages.get(key).parallelStream()
-                .map(message -> colored(message))
-                .collect(Collectors.toList());
-        else
-            return multilineMessages.get(key);
+        List<String> lines = new ArrayList<>(templates.size());
+        for (MessageTemplate template : templates) {
+            lines.add(template.render(args));
+        }
+
+        return lines;
+    }
+
+    /**
+     * Gets multiline message.
+     * <p>
+     * Returned list is shared and can't be modified.
+     * Returns <tt>null</tt> if there aren't message for
+     * given key.
+     *
+     * @param   key         The key of message you want to get.
+     * @param   isColored   If <tt>true</tt> will translate colors
+     *      in {@link String}.
+     * @return Lines of message or <tt>null</tt>.
+     */
+    public List<String> multiline(final String key, final boolean isColored) {
+        Snapshot snapshot = ignoreSnapshot;
+
+        return isColored ? snapshot.renderedMultiline.get(key) : snapshot.rawMultiline.get(key);
     }
 
     /**
@@ -297,6 +467,7 @@ public class MessagesManager extends BukkitYamlConfiguration {
     /**
      * Gets all help messages for given command.
      * <p>
+     * Returned collection is shared and can't be modified.
      * Returns <tt>null</tt> if given command doesn't
      * exists.
      *
@@ -307,15 +478,9 @@ public class MessagesManager extends BukkitYamlConfiguration {
      * @return List of help message or <tt>null</tt>.
      */
     public Collection<String> allHelpFor(final String command, final boolean isColored) {
-        if (!help.containsKey(command))
-            return null;
+        Snapshot snapshot = ignoreSnapshot;
 
-        if (isColored)
-            return help.get(command).values().parallelStream()
-                    .map(str -> colored(str))
-                    .collect(toList());
-        else
-            return help.get(command).values();
+        return isColored ? snapshot.renderedHelp.get(command) : snapshot.rawHelpLines.get(command);
     }
 
     /**
@@ -328,17 +493,16 @@ public class MessagesManager extends BukkitYamlConfiguration {
      *
      * @param   key     The key of message you want to get.
      * @param   args    Unnecessary array of {@link String} values
-     *      to insert it into message with {@link #args(String, String...)}.
+     *      to insert it into message with slots of {@link MessageTemplate}.
      * @return Colored message with argument in it or <tt>null</tt>.
      *
-     * @see #args(String...)
-     * @see #colored(String)
+     * @see MessageTemplate
      */
     public String error(final String key, final String...args) {
         if (args.length == 0)
             return error(key, true);
         else
-            return colored(args(error(key, false), args));
+            return render(ignoreSnapshot.error.get(key), args);
     }
 
     /**
@@ -352,13 +516,13 @@ public class MessagesManager extends BukkitYamlConfiguration {
      *      in {@link String}.
      * @return Colored message with argument in it or <tt>null</tt>.
      *
-     * @see #colored(String)
+     * @see MessageTemplate
      */
     public String error(final String key, final boolean isColored) {
         if (isColored)
-            return colored(error.get(key));
+            return render(ignoreSnapshot.error.get(key));
         else
-            return error.get(key);
+            return ignoreSnapshot.rawError.get(key);
     }
 
     /**
@@ -371,17 +535,16 @@ public class MessagesManager extends BukkitYamlConfiguration {
      *
      * @param   key     The key of message you want to get.
      * @param   args    Unnecessary array of {@link String} values
-     *      to insert it into message with {@link #args(String, String...)}.
+     *      to insert it into message with slots of {@link MessageTemplate}.
      * @return Colored message with argument in it or <tt>null</tt>.
      *
-     * @see #args(String...)
-     * @see #colored(String)
+     * @see MessageTemplate
      */
     public String info(final String key, final String...args) {
         if (args.length == 0)
             return info(key, true);
         else
-            return colored(args(info(key, false), args));
+            return render(ignoreSnapshot.info.get(key), args);
     }
 
     /**
@@ -395,13 +558,13 @@ public class MessagesManager extends BukkitYamlConfiguration {
      *      in {@link String}.
      * @return Colored message with argument in it or <tt>null</tt>.
      *
-     * @see #colored(String)
+     * @see MessageTemplate
      */
     public String info(final String key, final boolean isColored) {
         if (isColored)
-            return colored(info.get(key));
+            return render(ignoreSnapshot.info.get(key));
         else
-            return info.get(key);
+            return ignoreSnapshot.rawInfo.get(key);
     }
 
     /**
@@ -419,17 +582,16 @@ public class MessagesManager extends BukkitYamlConfiguration {
      * @param   subCommand  Name of sub command, for which you want
      *      to get usage message.
      * @param   args        Array of values to insert into {@link String}
-     *      with {@link #args(String, String...)} method.
+     *      with slots of {@link MessageTemplate} method.
      * @return <tt>null</tt> or message.
      *
-     * @see #args(String...)
-     * @see #colored(String)
+     * @see MessageTemplate
      */
     public String help(final String command, final String subCommand, final String...args) {
         if (args.length == 0)
             return help(command, subCommand, true);
         else
-            return colored(args(help(command, subCommand, false), args));
+            return render(nested(ignoreSnapshot.help, command, subCommand), args);
     }
 
     /**
@@ -449,13 +611,12 @@ public class MessagesManager extends BukkitYamlConfiguration {
      * @return <tt>null</tt> or message.
      */
     public String help(final String command, final String subCommand, final boolean isColored) {
-        if (!help.containsKey(command))
-            return null;
+        Snapshot snapshot = ignoreSnapshot;
 
         if (isColored)
-            return colored(help.get(command).get(subCommand));
+            return render(nested(snapshot.help, command, subCommand));
         else
-            return help.get(command).get(subCommand);
+            return nested(snapshot.rawHelp, command, subCommand);
     }
 
     /**
@@ -473,17 +634,16 @@ public class MessagesManager extends BukkitYamlConfiguration {
      * @param   subCommand  Name of sub command, for which you want
      *      to get usage message.
      * @param   args        Array of values to insert into {@link String}
-     *      with {@link #args(String, String...)} method.
+     *      with slots of {@link MessageTemplate} method.
      * @return <tt>null</tt> or message.
      *
-     * @see #args(String...)
-     * @see #colored(String)
+     * @see MessageTemplate
      */
     public String usage(final String command, final String subCommand, final String...args) {
         if (args.length == 0)
             return usage(command, subCommand, true);
         else
-            return colored(args(usage(command, subCommand, false), args));
+            return render(nested(ignoreSnapshot.usage, command, subCommand), args);
     }
 
     /**
@@ -503,12 +663,134 @@ public class MessagesManager extends BukkitYamlConfiguration {
      * @return <tt>null</tt> or message.
      */
     public String usage(final String command, final String subCommand, final boolean isColored) {
-        if (!usage.containsKey(command))
-            return null;
+        Snapshot snapshot = ignoreSnapshot;
 
         if (isColored)
-            return colored(usage.get(command).get(subCommand));
+            return render(nested(snapshot.usage, command, subCommand));
         else
-            return usage.get(command).get(subCommand);
+            return nested(snapshot.rawUsage, command, subCommand);
+    }
+
+    private static String render(final MessageTemplate template, final String... args) {
+        return (template == null) ? null : template.render(args);
+    }
+
+    private static <T> T nested(
+        final Map<String, Map<String, T>> messages,
+        final String command, final String subCommand
+    ) {
+        Map<String, T> subCommands = messages.get(command);
+
+        return (subCommands == null) ? null : subCommands.get(subCommand);
+    }
+
+    /**
+     * Immutable set of compiled messages.
+     * <p>
+     * Messages without arguments are rendered once, when
+     * snapshot is created, so getting them costs a lookup.
+     */
+    private static final class Snapshot {
+        private final Map<String, MessageTemplate> info;
+        private final Map<String, MessageTemplate> error;
+        private final Map<String, Map<String, MessageTemplate>> usage;
+        private final Map<String, Map<String, MessageTemplate>> help;
+        private final Map<String, List<MessageTemplate>> multiline;
+        private final Map<String, List<String>> renderedMultiline;
+        private final Map<String, List<String>> renderedHelp;
+        private final Map<String, String> rawInfo;
+        private final Map<String, String> rawError;
+        private final Map<String, Map<String, String>> rawUsage;
+        private final Map<String, Map<String, String>> rawHelp;
+        private final Map<String, List<String>> rawMultiline;
+        private final Map<String, Collection<String>> rawHelpLines;
+
+        private Snapshot(final MessagesManager messages) {
+            rawInfo = copy(messages.info);
+            rawError = copy(messages.error);
+            rawUsage = copyNested(messages.usage);
+            rawHelp = copyNested(messages.help);
+
+            info = compile(rawInfo);
+            error = compile(rawError);
+            usage = compileNested(rawUsage);
+            help = compileNested(rawHelp);
+
+            Map<String, List<MessageTemplate>> multiline = new HashMap<>();
+            Map<String, List<String>> renderedMultiline = new HashMap<>();
+            Map<String, List<String>> rawMultiline = new HashMap<>();
+            messages.multilineMessages.forEach((key, lines) -> {
+                MessageTemplate[] templates = new MessageTemplate[lines.size()];
+                String[] rendered = new String[lines.size()];
+
+                for (int line = 0; line < templates.length; line++) {
+                    templates[line] = MessageTemplate.compile(lines.get(line), slotNames(key));
+                    rendered[line] = templates[line].render();
+                }
+
+                multiline.put(key, immutableList(templates));
+                renderedMultiline.put(key, immutableList(rendered));
+                rawMultiline.put(key, immutableList(lines.toArray(new String[0])));
+            });
+            this.multiline = multiline;
+            this.renderedMultiline = renderedMultiline;
+            this.rawMultiline = rawMultiline;
+
+            Map<String, List<String>> renderedHelp = new HashMap<>();
+            Map<String, Collection<String>> rawHelpLines = new HashMap<>();
+            help.forEach((command, subCommands) -> {
+                String[] rendered = new String[subCommands.size()];
+                int line = 0;
+
+                for (MessageTemplate template : subCommands.values()) {
+                    rendered[line++] = template.render();
+                }
+
+                renderedHelp.put(command, immutableList(rendered));
+                rawHelpLines.put(
+                    command, Collections.unmodifiableCollection(rawHelp.get(command).values())
+                );
+            });
+            this.renderedHelp = renderedHelp;
+            this.rawHelpLines = rawHelpLines;
+        }
+
+        /** Wraps array which isn't used anywhere else without copying it. */
+        private static <T> List<T> immutableList(final T[] elements) {
+            return Collections.unmodifiableList(Arrays.asList(elements));
+        }
+
+        private static Map<String, String> copy(final Map<String, String> messages) {
+            return (messages == null) ? Collections.emptyMap() : new HashMap<>(messages);
+        }
+
+        private static Map<String, Map<String, String>> copyNested(
+            final Map<String, Map<String, String>> messages
+        ) {
+            Map<String, Map<String, String>> copy = new HashMap<>();
+            if (messages != null) {
+                messages.forEach((command, subCommands) -> copy.put(command, copy(subCommands)));
+            }
+
+            return copy;
+        }
+
+        private static Map<String, MessageTemplate> compile(final Map<String, String> messages) {
+            Map<String, MessageTemplate> templates = new HashMap<>();
+            messages.forEach((key, message) -> {
+                templates.put(key, MessageTemplate.compile(message, slotNames(key)));
+            });
+
+            return templates;
+        }
+
+        private static Map<String, Map<String, MessageTemplate>> compileNested(
+            final Map<String, Map<String, String>> messages
+        ) {
+            Map<String, Map<String, MessageTemplate>> templates = new HashMap<>();
+            messages.forEach((command, subCommands) -> templates.put(command, compile(subCommands)));
+
+            return templates;
+        }
     }
 }
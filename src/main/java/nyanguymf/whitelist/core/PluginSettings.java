@@ -0,0 +1,135 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Immutable snapshot of settings from <tt>config.yml</tt>,
+ * which can be changed without restart.
+ * <p>
+ * Current snapshot is published through volatile reference,
+ * so it's read without locks from any thread and is replaced
+ * as a whole when file is edited.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class PluginSettings {
+    private static volatile PluginSettings current = load(new YamlConfiguration());
+
+    private final String lang;
+    private final boolean isWhitelistEnabled;
+    private final long databaseTimeout;
+    private final boolean isFailOpen;
+    private final boolean isKickOnline;
+    private final int pageSize;
+    /** Names of players by group name, in config order. */
+    private final Map<String, List<String>> groups;
+
+    private PluginSettings(final ConfigurationSection config) {
+        lang = config.getString("lang", "en");
+        isWhitelistEnabled = config.getBoolean("is-enabled", false);
+        databaseTimeout = config.getLong("login.database-timeout", 2_000);
+        isFailOpen = config.getString("login.fail-policy", "closed").equalsIgnoreCase("open");
+        isKickOnline = config.getBoolean("expiry.kick-online", true);
+        pageSize = Math.max(1, config.getInt("list.page-size", 10));
+
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        ConfigurationSection section = config.getConfigurationSection("groups");
+        if (section != null) {
+            for (String group : section.getKeys(false)) {
+                if (section.isList(group)) {
+                    groups.put(group, ImmutableList.copyOf(section.getStringList(group)));
+                }
+            }
+        }
+        this.groups = Collections.unmodifiableMap(groups);
+    }
+
+    /** Parses settings from given config. */
+    static PluginSettings load(final ConfigurationSection config) {
+        return new PluginSettings(config);
+    }
+
+    /** Replaces current settings. */
+    static void publish(final PluginSettings settings) {
+        PluginSettings.current = settings;
+    }
+
+    /** @return current settings. */
+    public static PluginSettings current() {
+        return PluginSettings.current;
+    }
+
+    /** @return the lang */
+    public String getLang() {
+        return lang;
+    }
+
+    /** @return whitelist mode written in config. */
+    public boolean isWhitelistEnabled() {
+        return isWhitelistEnabled;
+    }
+
+    /** @return max time in milliseconds to wait for database on login. */
+    public long getDatabaseTimeout() {
+        return databaseTimeout;
+    }
+
+    /** @return <tt>true</tt> if login is allowed when database didn't answer. */
+    public boolean isFailOpen() {
+        return isFailOpen;
+    }
+
+    /** @return the isKickOnline */
+    public boolean isKickOnline() {
+        return isKickOnline;
+    }
+
+    /** @return the pageSize */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Gets names of group.
+     *
+     * @return names or <tt>null</tt> if there's no such group.
+     */
+    public List<String> getGroup(final String name) {
+        return groups.get(name);
+    }
+
+    /** @return names of all groups. */
+    public Iterable<String> getGroupNames() {
+        return groups.keySet();
+    }
+}
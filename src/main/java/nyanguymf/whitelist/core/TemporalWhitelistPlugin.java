@@ -23,8 +23,8 @@
 package nyanguymf.whitelist.core;
 
 import static nyanguymf.whitelist.core.db.DatabaseManagerFactory.loadDatabaseManager;
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.allPlayers;
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.playerByName;
+import static nyanguymf.whitelist.core.db.DatabaseManagerFactory.reloadDatabaseManager;
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.revokeExpired;
 import static org.bukkit.Bukkit.getConsoleSender;
 import static org.bukkit.Bukkit.getScheduler;
 import static org.bukkit.ChatColor.GREEN;
@@ -32,33 +32,37 @@ import static org.bukkit.ChatColor.GREEN;
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
+import java.util.Set;
 
 import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
-import org.bukkit.plugin.PluginManager;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import nyanguymf.whitelist.commons.config.DebouncedFileWriter;
+import nyanguymf.whitelist.commons.config.FileWatcher;
 import nyanguymf.whitelist.commons.db.DatabaseManager;
 import nyanguymf.whitelist.commons.db.DatabaseManager.ConnectionStatus;
 import nyanguymf.whitelist.core.commands.WhitelistCommand;
-import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+import nyanguymf.whitelist.core.db.UnknownPlayersWriter;
+import nyanguymf.whitelist.core.db.WhitelistFilter;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
 import nyanguymf.whitelist.core.events.PlayerJoinHandler;
 
 /** @author NyanGuyMF - Vasiliy Bely */
 public final class TemporalWhitelistPlugin extends JavaPlugin implements WhitelistManager {
     private static TemporalWhitelistPlugin instance;
-    private boolean isEnabled = false;
+    private final WhitelistState state = new WhitelistState(false);
     private static DatabaseManager databaseManager;
     private MessagesManager messagesManager;
-
-    public static boolean reload() {
-        PluginManager pmanager = TemporalWhitelistPlugin.instance.getServer().getPluginManager();
-
-        pmanager.disablePlugin(TemporalWhitelistPlugin.instance);
-        pmanager.enablePlugin(TemporalWhitelistPlugin.instance);
-
-        return TemporalWhitelistPlugin.instance.isEnabled();
-    }
+    private PlayerJoinHandler joinHandler;
+    private UnknownPlayersWriter unknownPlayers;
+    private ExpiryScheduler expiryScheduler;
+    private KickScheduler kickScheduler;
+    private KnownPlayersIndex knownPlayers;
+    private WhitelistCommand whitelistCommand;
+    private FileWatcher configWatcher;
+    private DebouncedFileWriter configWriter;
 
     @Override public void onLoad() {
         TemporalWhitelistPlugin.instance = this;
@@ -70,18 +74,21 @@ public final class TemporalWhitelistPlugin extends JavaPlugin implements Whiteli
             super.saveDefaultConfig();
         }
 
-        isEnabled = super.getConfig().getBoolean("is-enabled", false);
+        PluginSettings.publish(PluginSettings.load(super.getConfig()));
+        state.set(PluginSettings.current().isWhitelistEnabled());
+        state.setFileMode(PluginSettings.current().isWhitelistEnabled());
 
         TemporalWhitelistPlugin.databaseManager = loadDatabaseManager(this);
 
-        if (TemporalWhitelistPlugin.databaseManager.getStatus() == ConnectionStatus.CONNECTED) {
+        if ((TemporalWhitelistPlugin.databaseManager != null)
+                && (TemporalWhitelistPlugin.databaseManager.getStatus() == ConnectionStatus.CONNECTED)) {
             Bukkit.getConsoleSender().sendMessage(GREEN + "Connected to database.");
         }
 
         try {
             messagesManager = MessagesManager.getInstance(
                 super.getDataFolder(),
-                super.getConfig().getString("lang", "en")
+                PluginSettings.current().getLang()
             );
         } catch (IOException ex) {
             System.err.printf(
@@ -100,72 +107,239 @@ public final class TemporalWhitelistPlugin extends JavaPlugin implements Whiteli
             return;
         }
 
-        new WhitelistCommand(messagesManager, this).register(this);
-        new PlayerJoinHandler(messagesManager).register(this);
+        if (!WhitelistIndex.load()) {
+            getConsoleSender().sendMessage(
+                "\u00a73TemporalWhitelist \u00a78» \u00a7cUnable to load whitelist index, "
+                + "login checks will query database."
+            );
+        }
+
+        loadWhitelistFilter();
+
+        unknownPlayers = new UnknownPlayersWriter(
+            super.getConfig().getInt("write-behind.flush-size", 500),
+            super.getConfig().getInt("write-behind.capacity", 10_000)
+        );
+        unknownPlayers.start(this, 20 * super.getConfig().getLong("write-behind.flush-interval", 5));
+
+        knownPlayers = new KnownPlayersIndex();
+        knownPlayers.register(this);
+
+        whitelistCommand = new WhitelistCommand(
+            messagesManager, this, unknownPlayers,
+            TemporalWhitelistPlugin.databaseManager, knownPlayers, this
+        );
+        whitelistCommand.register(this);
+        joinHandler = new PlayerJoinHandler(
+            messagesManager, this, unknownPlayers, TemporalWhitelistPlugin.databaseManager
+        );
+        joinHandler.register(this);
+
+        kickScheduler = new KickScheduler(
+            messagesManager, this, super.getConfig().getInt("kick.per-tick", 20)
+        );
+        kickScheduler.start(this);
+
+        expiryScheduler = new ExpiryScheduler(this, kickScheduler);
+        expiryScheduler.start(this);
 
+        // precise expiry is done by scheduler, this sweep only catches
+        // rows which were changed bypassing whitelist index
         getScheduler().runTaskTimerAsynchronously(this, () -> {
-            Date currentDate = new Date();
-
-            for (WhitelistedPlayer player : allPlayers()) {
-                if (player.isWhitelisted() && (player.getUntil() != null)) {
-                    if (player.getUntil().after(currentDate)) {
-                        player.setUntil(null);
-                        player.setWhitelisted(false);
-                        player.save();
-                    }
-                }
-            }
+            revokeExpired(new Date());
         }, 0, 20 * 1_800); // run every 30 minutes
 
+        watchConfigFiles();
+
         getConsoleSender().sendMessage(
             "\u00a73TemporalWhitelist \u00a78» \u00a7aPlugin enabled."
         );
 
-        String isEnabled = this.isEnabled ? "\u00a7atrue" : "\u00a7cfalse";
+        String isEnabled = state.isEnabled() ? "\u00a7atrue" : "\u00a7cfalse";
         getConsoleSender().sendMessage(
             "\u00a73TemporalWhitelist \u00a78» \u00a7eWhitelist mode: "
             + isEnabled
         );
 
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-            WhitelistedPlayer player = playerByName(onlinePlayer.getName());
-            if ((player != null) && !player.isWhitelisted()) {
-                onlinePlayer.kickPlayer(
-                    messagesManager.info("not-whitelisted").replace("\\n", "\n")
-                );
-            }
-        }
+        kickScheduler.kickNotWhitelisted();
     }
 
     @Override public void onDisable() {
-        try {
-            TemporalWhitelistPlugin.databaseManager.close();
-        } catch (IOException ignore) {}
-        updateWhitelistConfig();
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        if (configWriter != null) {
+            configWriter.close();
+        }
+        if (whitelistCommand != null) {
+            whitelistCommand.close();
+        }
+        if (joinHandler != null) {
+            joinHandler.close();
+        }
+        if (unknownPlayers != null) {
+            unknownPlayers.close();
+        }
+        if (expiryScheduler != null) {
+            expiryScheduler.close();
+        }
+        if (kickScheduler != null) {
+            kickScheduler.close();
+        }
+        if (TemporalWhitelistPlugin.databaseManager != null) {
+            try {
+                TemporalWhitelistPlugin.databaseManager.close();
+            } catch (IOException ignore) {}
+        }
     }
 
-    @Override public void enable() {
-        if (!isEnabled) {
-            isEnabled = true;
-        }
+    @Override public boolean enable() {
+        if (!state.set(true))
+            return false;
+
         updateWhitelistConfig();
+        if (kickScheduler != null) {
+            kickScheduler.kickNotWhitelisted();
+        }
+        return true;
     }
 
-    @Override public void disable() {
-        if (isEnabled) {
-            isEnabled = false;
-        }
+    @Override public boolean disable() {
+        if (!state.set(false))
+            return false;
+
         updateWhitelistConfig();
+        return true;
     }
 
     @Override public boolean isWhitelistEnabled() {
-        return isEnabled;
+        return state.isEnabled();
     }
 
-    private void updateWhitelistConfig() {
-        super.getConfig().set("is-enabled", isEnabled);
+    private void loadWhitelistFilter() {
+        if (!super.getConfig().getBoolean("login.filter.enabled", true))
+            return;
+
+        boolean isLoaded = WhitelistFilter.load(
+            super.getConfig().getDouble("login.filter.false-positive-rate", 0.01),
+            super.getConfig().getLong("login.filter.expected-players", 0),
+            1_024 * super.getConfig().getLong("login.filter.max-size-kb", 16_384)
+        );
+
+        if (isLoaded) {
+            getConsoleSender().sendMessage(String.format(
+                "\u00a73TemporalWhitelist \u00a78» \u00a7eLogin filter: \u00a76%d KiB\u00a7e, "
+                + "\u00a76%d \u00a7ehashes, \u00a76%.3f%% \u00a7efalse positives.",
+                WhitelistFilter.getMemoryBytes() / 1_024, WhitelistFilter.getHashes(),
+                100 * WhitelistFilter.expectedFalsePositiveRate()
+            ));
+        }
+    }
+
+    /**
+     * Starts watching plug-in folder, so edits of config, database
+     * and messages files are applied without restart.
+     */
+    private void watchConfigFiles() {
+        File configFile = new File(super.getDataFolder(), "config.yml");
+        long debounce = super.getConfig().getLong("reload.debounce", 500);
+
+        configWatcher = new FileWatcher(super.getDataFolder().toPath(), debounce, this::reloadFiles);
+        configWriter = new DebouncedFileWriter(configFile.toPath(), debounce, configWatcher);
+
+        if (!super.getConfig().getBoolean("reload.watch-files", true))
+            return;
+
+        try {
+            configWatcher.start();
+        } catch (IOException ex) {
+            System.err.printf("Unable to watch config files: %s\n", ex.getLocalizedMessage());
+        }
+    }
+
+    /** Applies edits of given files, called on watcher thread. */
+    private void reloadFiles(final Set<String> fileNames) {
+        if (fileNames.contains("config.yml") && reloadSettings()) {
+            reloaded("config.yml");
+        }
+        if (fileNames.contains(messagesManager.getFileName()) && messagesManager.reload()) {
+            reloaded(messagesManager.getFileName());
+        }
+        if (fileNames.contains("database.yml")
+                && reloadDatabaseManager(this, TemporalWhitelistPlugin.databaseManager)) {
+            reloaded("database.yml");
+        }
+    }
+
+    /**
+     * Parses <tt>config.yml</tt> into new {@link PluginSettings}
+     * and publishes them, if file is valid.
+     */
+    private boolean reloadSettings() {
+        boolean fileMode = state.getFileMode();
+        YamlConfiguration config = new YamlConfiguration();
         try {
-            super.getConfig().save(new File(super.getDataFolder(), "config.yml"));
-        } catch (IOException ignore) {}
+            config.load(new File(super.getDataFolder(), "config.yml"));
+        } catch (IOException | InvalidConfigurationException ex) {
+            System.err.printf("Unable to reload config.yml: %s\n", ex.getLocalizedMessage());
+            return false;
+        }
+
+        PluginSettings previous = PluginSettings.current();
+        PluginSettings settings = PluginSettings.load(config);
+        PluginSettings.publish(settings);
+
+        if (!settings.getLang().equals(previous.getLang())
+                && messagesManager.reload(settings.getLang())) {
+            reloaded(messagesManager.getFileName());
+        }
+
+        // toggle which isn't written yet isn't reverted by other edits of file
+        if (state.setFromFile(fileMode, settings.isWhitelistEnabled())
+                && settings.isWhitelistEnabled()) {
+            kickScheduler.kickNotWhitelisted();
+        }
+
+        return true;
+    }
+
+    private static void reloaded(final String fileName) {
+        getConsoleSender().sendMessage(
+            "\u00a73TemporalWhitelist \u00a78» \u00a7eReloaded \u00a76" + fileName + "\u00a7e."
+        );
+    }
+
+    /**
+     * Writes whitelist mode into <tt>config.yml</tt> in background.
+     * <p>
+     * File is read again before writing, so edits made since it
+     * was loaded aren't overwritten.
+     */
+    private void updateWhitelistConfig() {
+        if (configWriter == null)
+            return;
+
+        File configFile = new File(super.getDataFolder(), "config.yml");
+        boolean[] written = new boolean[1];
+        configWriter.write(() -> {
+            YamlConfiguration config = new YamlConfiguration();
+            try {
+                config.load(configFile);
+            } catch (IOException | InvalidConfigurationException ex) {
+                throw new IllegalStateException(ex.getLocalizedMessage(), ex);
+            }
+
+            // toggles made before write are coalesced into last mode
+            boolean isEnabled = state.isEnabled();
+            written[0] = isEnabled;
+
+            if (config.getBoolean("is-enabled", false) == isEnabled) {
+                state.setFileMode(isEnabled);
+                return null;
+            }
+
+            config.set("is-enabled", isEnabled);
+            return config.saveToString();
+        }, () -> state.setFileMode(written[0]));
     }
 }
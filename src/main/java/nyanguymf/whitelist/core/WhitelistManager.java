@@ -24,11 +24,19 @@ package nyanguymf.whitelist.core;
 
 /** @author NyanGuyMF - Vasiliy Bely */
 public interface WhitelistManager {
-    /** Enables whitelist. */
-    void enable();
+    /**
+     * Enables whitelist.
+     *
+     * @return <tt>false</tt> if whitelist was already enabled.
+     */
+    boolean enable();
 
-    /** Disables whitelist. */
-    void disable();
+    /**
+     * Disables whitelist.
+     *
+     * @return <tt>false</tt> if whitelist was already disabled.
+     */
+    boolean disable();
 
     /**
      * Check is whitelist enabled.
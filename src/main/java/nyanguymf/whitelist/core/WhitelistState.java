@@ -0,0 +1,85 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Whitelist mode shared between server thread, login
+ * threads and config watcher.
+ * <p>
+ * Mode is changed by compare-and-set, so when several
+ * threads toggle it at once, only one of them sees the
+ * change and persists it. Mode of config file is tracked
+ * too, so toggle which isn't written yet isn't reverted
+ * by unrelated edits of the file.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class WhitelistState {
+    private final AtomicBoolean isEnabled;
+    /** Mode config file had when plug-in last read or wrote it. */
+    private final AtomicBoolean fileMode;
+
+    WhitelistState(final boolean isEnabled) {
+        this.isEnabled = new AtomicBoolean(isEnabled);
+        fileMode = new AtomicBoolean(isEnabled);
+    }
+
+    /** @return the isEnabled */
+    boolean isEnabled() {
+        return isEnabled.get();
+    }
+
+    /**
+     * Sets whitelist mode.
+     *
+     * @return <tt>true</tt> if mode was changed.
+     */
+    boolean set(final boolean isEnabled) {
+        return this.isEnabled.compareAndSet(!isEnabled, isEnabled);
+    }
+
+    /** @return mode config file had when plug-in last read or wrote it. */
+    boolean getFileMode() {
+        return fileMode.get();
+    }
+
+    /** Records mode which config file has now. */
+    void setFileMode(final boolean isEnabled) {
+        fileMode.set(isEnabled);
+    }
+
+    /**
+     * Sets mode read from config file, if it was edited there.
+     *
+     * @param   seen        Result of {@link #getFileMode()} taken
+     *      before file was read.
+     * @param   isEnabled   Mode read from file.
+     * @return <tt>true</tt> if mode was changed.
+     */
+    boolean setFromFile(final boolean seen, final boolean isEnabled) {
+        // plug-in wrote file since it was read, so it's stale
+        return (seen != isEnabled) && fileMode.compareAndSet(seen, isEnabled) && set(isEnabled);
+    }
+}
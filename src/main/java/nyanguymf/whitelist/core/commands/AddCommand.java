@@ -23,87 +23,203 @@
 package nyanguymf.whitelist.core.commands;
 
 import static java.lang.System.currentTimeMillis;
-import static nyanguymf.whitelist.core.MessagesManager.formatTime;
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.isPlayerExists;
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.playerByName;
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.whitelistAll;
 
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 
+import nyanguymf.whitelist.commons.commands.Arguments;
+import nyanguymf.whitelist.commons.commands.PrefixIndex;
 import nyanguymf.whitelist.commons.commands.SubCommand;
 import nyanguymf.whitelist.core.MessagesManager;
-import nyanguymf.whitelist.core.db.WhitelistedPlayer;
 import sh.okx.timeapi.api.TimeAPI;
 
-/** @author NyanGuyMF - Vasiliy Bely */
+/**
+ * Adds one or many players to whitelist.
+ * <p>
+ * Usage: <tt>/wh add name[,name] [@group] ... [time]</tt>,
+ * last argument is treated as time if it can be parsed. Argument
+ * which starts with digit and ends with letter is always treated
+ * as time, so mistyped time isn't whitelisted as player name.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
 final class AddCommand extends SubCommand {
+    private static final int MAX_COMPLETIONS = 100;
+    /** Shortest name of every duration unit. */
+    private static final List<String> SHORT_UNITS = new ArrayList<>();
+    private static final PrefixIndex UNITS;
     private MessagesManager messages;
+    private PlayerNames playerNames;
+
+    static {
+        List<String> units = new ArrayList<>();
+
+        for (List<String> names : TimeAPI.getUnitNames()) {
+            SHORT_UNITS.add(names.get(0));
+            units.addAll(names);
+        }
 
-    public AddCommand(final MessagesManager messages) {
+        UNITS = PrefixIndex.of(units);
+    }
+
+    public AddCommand(final MessagesManager messages, final PlayerNames playerNames) {
         super("add", "twh.add", messages.usage("whitelist", "add"));
         this.messages = messages;
+        this.playerNames = playerNames;
     }
 
-    @Override public boolean execute(
-        final CommandSender sender, final String alias, final String[] args
+    @Override public CompletableFuture<List<String>> executeAsync(
+        final CommandSender sender, final String alias, final Arguments args
     ) {
         if (!super.hasPermission(sender))
-            return false;
-
-        if (args.length == 0)
-            return false;
-
-        // I thought about stream with map(player -> name), then sort & search
-        // or maybe just stream API usage, but it's too complicated method for this goal
-        // TODO: find other way if this will be time-consuming
-        boolean isPlayerFound = false;
-        for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
-            if ((player.getName() != null) && player.getName().equals(args[0])) {
-                isPlayerFound = true;
-                break;
-            }
-        }
+            return null;
 
-        if (!isPlayerFound) {
-            sender.sendMessage(messages.info("player-not-found-warn", args[0]));
-        }
+        if (args.isEmpty())
+            return null;
+
+        int namesEnd = args.length();
+        long untilTime = 0;
 
-        Date untilDate = null;
+        if (args.length() > 1) {
+            String time = args.last();
+            TimeAPI until = parseTime(time);
 
-        if (args.length > 1) {
-            try {
-                TimeAPI until = new TimeAPI(args[1]);
-                untilDate = new Date(currentTimeMillis() + until.getMilliseconds());
-            } catch (IllegalArgumentException ex) {
-                sender.sendMessage(messages.error("invalid-time-format", args[1]));
-                return true;
+            if (until != null) {
+                namesEnd--;
+                try {
+                    untilTime = Math.addExact(currentTimeMillis(), until.getMilliseconds());
+                } catch (ArithmeticException ex) {
+                    return reply(messages.error("invalid-time-format", time));
+                }
+            } else if (looksLikeTime(time)) {
+                return reply(messages.error("invalid-time-format", time));
             }
         }
 
-        WhitelistedPlayer player;
-        if (isPlayerExists(args[0])) {
-            player = playerByName(args[0]);
-            player.setWhitelisted(true);
-            player.setUntil(untilDate);
-            player.save();
-        } else {
-            player = new WhitelistedPlayer(args[0], untilDate);
-            player.setWhitelisted(true);
-            player.create();
+        Set<String> names;
+        try {
+            names = playerNames.resolve(args, 0, namesEnd);
+        } catch (PlayerNames.UnresolvedTokenException ex) {
+            return reply(messages.error(ex.getMessageKey(), ex.getToken()));
         }
 
-        if (untilDate != null) {
+        if (names.isEmpty())
+            return null;
+
+        List<String> unknown = playerNames.unknown(names);
+        if (names.size() == 1 && !unknown.isEmpty()) {
+            sender.sendMessage(messages.info("player-not-found-warn", unknown.get(0)));
+        } else if (!unknown.isEmpty()) {
             sender.sendMessage(messages.info(
-                "whitelisted-until", player.getName(),
-                formatTime(messages.info("until"), untilDate)
+                "players-not-found-warn", String.valueOf(unknown.size()), String.join(", ", unknown)
             ));
-        } else {
-            sender.sendMessage(messages.info("whitelisted", player.getName()));
         }
 
-        return true;
+        long until = untilTime;
+        return super.supplyAsync(() -> whitelistAll(names, until))
+            .thenApply(existing -> Collections.singletonList(summary(names, existing, until)));
+    }
+
+    private String summary(final Set<String> names, final Set<String> existing, final long until) {
+        if (existing == null)
+            return messages.error("database-error");
+
+        if (names.size() == 1) {
+            String name = names.iterator().next();
+
+            return until != 0
+                    ? messages.info("whitelisted-until", name, messages.formatTime(until))
+                    : messages.info("whitelisted", name);
+        }
+
+        String added = String.valueOf(names.size());
+        String created = String.valueOf(names.size() - existing.size());
+        String updated = String.valueOf(existing.size());
+
+        if (until != 0) {
+            return messages.info(
+                "batch-whitelisted-until", added, created, updated, messages.formatTime(until)
+            );
+        }
+
+        return messages.info("batch-whitelisted", added, created, updated);
+    }
+
+    @Override protected List<String> failed(final Throwable cause) {
+        super.failed(cause);
+        return Collections.singletonList(messages.error("database-error"));
+    }
+
+    /** @return parsed time or <tt>null</tt> if given argument isn't time. */
+    private static TimeAPI parseTime(final String arg) {
+        try {
+            return new TimeAPI(arg);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /** Checks if given argument is meant to be time, e.g. <tt>1dd</tt>. */
+    private static boolean looksLikeTime(final String arg) {
+        return !arg.isEmpty()
+                && Character.isDigit(arg.charAt(0))
+                && Character.isLetter(arg.charAt(arg.length() - 1));
+    }
+
+    @Override public List<String> tabComplete(final CommandSender sender, final Arguments args) {
+        if (args.isEmpty())
+            return Collections.emptyList();
+
+        String arg = args.last();
+        List<String> durations = (args.length() > 1)
+                ? completeDuration(arg, MAX_COMPLETIONS)
+                : Collections.emptyList();
+
+        if (durations.isEmpty())
+            return playerNames.complete(arg, MAX_COMPLETIONS);
+
+        // names may start with digits too
+        List<String> completions = new ArrayList<>(durations);
+        completions.addAll(playerNames.complete(arg, MAX_COMPLETIONS - durations.size()));
+
+        return completions;
+    }
+
+    /**
+     * Completes unit of last part of duration, e.g. <tt>1d12h</tt>
+     * for <tt>1d12</tt> or <tt>1d12hours</tt> for <tt>1d12ho</tt>.
+     *
+     * @return completions or empty list if argument isn't duration.
+     */
+    private static List<String> completeDuration(final String arg, final int limit) {
+        int unitStart = arg.length();
+        while ((unitStart > 0) && Character.isLetter(arg.charAt(unitStart - 1))) {
+            unitStart--;
+        }
+
+        int amountStart = unitStart;
+        while ((amountStart > 0) && Character.isDigit(arg.charAt(amountStart - 1))) {
+            amountStart--;
+        }
+
+        if ((amountStart == unitStart) || (parseTime(arg.substring(0, amountStart)) == null))
+            return Collections.emptyList();
+
+        String head = arg.substring(0, unitStart);
+        String unit = arg.substring(unitStart);
+        List<String> units = unit.isEmpty() ? SHORT_UNITS : UNITS.startingWith(unit, limit);
+        List<String> completions = new ArrayList<>(units.size());
+
+        for (String name : units) {
+            completions.add(head + name);
+        }
+
+        return completions;
     }
 }
@@ -24,6 +24,7 @@ package nyanguymf.whitelist.core.commands;
 
 import org.bukkit.command.CommandSender;
 
+import nyanguymf.whitelist.commons.commands.Arguments;
 import nyanguymf.whitelist.commons.commands.SubCommand;
 import nyanguymf.whitelist.core.MessagesManager;
 import nyanguymf.whitelist.core.WhitelistManager;
@@ -44,18 +45,16 @@ final class EnableCommand extends SubCommand {
     }
 
     @Override public boolean execute(
-        final CommandSender sender, final String alias, final String[] args
+        final CommandSender sender, final String alias, final Arguments args
     ) {
         if (!super.hasPermission(sender))
             return false;
 
-        if (whManager.isWhitelistEnabled()) {
+        if (!whManager.enable()) {
             sender.sendMessage(messages.info("already-enabled"));
             return true;
         }
 
-        whManager.enable();
-
         sender.sendMessage(messages.info("enabled"));
 
         return true;
@@ -0,0 +1,106 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import nyanguymf.whitelist.commons.commands.Arguments;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.db.WhitelistFileFormat;
+import nyanguymf.whitelist.core.db.WhitelistTransfer;
+
+/** @author NyanGuyMF - Vasiliy Bely */
+final class ImportCommand extends TransferCommand {
+    public ImportCommand(
+        final MessagesManager messages, final Plugin plugin, final WhitelistTransfer transfer
+    ) {
+        super("import", "twh.import", messages, plugin, transfer);
+    }
+
+    @Override public boolean execute(
+        final CommandSender sender, final String alias, final Arguments args
+    ) {
+        if (!super.hasPermission(sender))
+            return false;
+
+        if (args.isEmpty())
+            return false;
+
+        Path file = super.resolve(args.get(0));
+        if (file == null) {
+            sender.sendMessage(messages.error("invalid-file-path", args.get(0)));
+            return true;
+        }
+
+        WhitelistFileFormat format = WhitelistFileFormat.byFileName(args.get(0));
+        if (format == null) {
+            sender.sendMessage(messages.error("unsupported-file-format", args.get(0)));
+            return true;
+        }
+
+        if (!Files.isRegularFile(file)) {
+            sender.sendMessage(messages.error("file-not-found", args.get(0)));
+            return true;
+        }
+
+        if (!transfer.tryStart()) {
+            sender.sendMessage(messages.error("transfer-running"));
+            return true;
+        }
+
+        sender.sendMessage(messages.info("import-started", args.get(0)));
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            long start = System.currentTimeMillis();
+
+            try {
+                long rows = transfer.importFrom(
+                    file, format, super.progress(sender, "import-progress", start)
+                );
+                long now = System.currentTimeMillis();
+
+                super.reply(sender, messages.info(
+                    "import-finished", String.valueOf(rows),
+                    seconds(start, now), rate(rows, start, now)
+                ));
+            } catch (IOException | SQLException ex) {
+                System.err.printf(
+                    "Unable to import whitelist from %s: %s\n",
+                    file, ex.getLocalizedMessage()
+                );
+                super.reply(sender, messages.error("import-failed", ex.getLocalizedMessage()));
+            } finally {
+                transfer.finish();
+            }
+        });
+
+        return true;
+    }
+}
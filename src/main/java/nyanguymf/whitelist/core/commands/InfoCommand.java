@@ -22,60 +22,97 @@
  */
 package nyanguymf.whitelist.core.commands;
 
-import static nyanguymf.whitelist.core.MessagesManager.formatTime;
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.isPlayerExists;
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.playerByName;
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.findByName;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.bukkit.command.CommandSender;
 
+import nyanguymf.whitelist.commons.commands.Arguments;
 import nyanguymf.whitelist.commons.commands.SubCommand;
 import nyanguymf.whitelist.core.MessagesManager;
-import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
 
 /** @author NyanGuyMF - Vasiliy Bely */
 final class InfoCommand extends SubCommand {
+    private static final int MAX_COMPLETIONS = 100;
     private MessagesManager messages;
+    private PlayerNames playerNames;
 
-    public InfoCommand(final MessagesManager messages) {
+    public InfoCommand(final MessagesManager messages, final PlayerNames playerNames) {
         super("info", "twh.info", messages.usage("whitelist", "info"));
 
         this.messages = messages;
+        this.playerNames = playerNames;
     }
 
-    @Override public boolean execute(
-        final CommandSender sender, final String alias, final String[] args
+    @Override public CompletableFuture<List<String>> executeAsync(
+        final CommandSender sender, final String alias, final Arguments args
     ) {
         if (!super.hasPermission(sender))
-            return false;
+            return null;
+
+        if (args.isEmpty())
+            return null;
+
+        String playerName = args.get(0);
 
-        if (args.length == 0)
-            return false;
+        if (!PlayerNames.isValidName(playerName))
+            return reply(messages.error("invalid-player-name", playerName));
 
-        if (!isPlayerExists(args[0])) {
-            sender.sendMessage(messages.error("player-doesnt-exists", args[0]));
-            return true;
+        // index holds whole table, so it can tell absent player too
+        if (WhitelistIndex.isLoaded()) {
+            UUID uuid = WhitelistIndex.id(playerName);
+            WhitelistIndex.Entry entry = (uuid == null) ? null : WhitelistIndex.entry(uuid);
+
+            if (entry == null)
+                return reply(messages.error("player-doesnt-exists", playerName));
+
+            return CompletableFuture.completedFuture(
+                info(entry.getName(), entry.isWhitelisted(), entry.getUntil())
+            );
         }
 
-        WhitelistedPlayer player = playerByName(args[0]);
+        return super.supplyAsync(() -> {
+            try {
+                return findByName(playerName);
+            } catch (SQLException ex) {
+                throw new CompletionException(ex);
+            }
+        }).thenApply(player -> (player == null)
+                ? Collections.singletonList(messages.error("player-doesnt-exists", playerName))
+                : info(player.getName(), player.isWhitelisted(), player.getUntil())
+        );
+    }
 
-        String isWhitelisted = player.isWhitelisted()
+    private List<String> info(
+        final String playerName, final boolean isPlayerWhitelisted, final long untilTime
+    ) {
+        String isWhitelisted = isPlayerWhitelisted
                 ? messages.info("true")
                 : messages.info("false");
 
-        String until = player.getUntil() != null
-                ? formatTime(messages.info("until"), player.getUntil())
+        String until = untilTime != 0
+                ? messages.formatTime(untilTime)
                 : messages.info("null");
 
-        messages.multiline("player-info", false).stream()
-            .map(message -> {
-                return message
-                    .replace("&", "\u00a7")
-                    .replace("{player-name}", player.getName())
-                    .replace("{is-whitelisted}", isWhitelisted)
-                    .replace("until", until);
-            })
-            .forEach(message -> sender.sendMessage(message));
-
-        return true;
+        return messages.multiline("player-info", playerName, isWhitelisted, until);
+    }
+
+    @Override public List<String> tabComplete(final CommandSender sender, final Arguments args) {
+        if (args.length() != 1)
+            return Collections.emptyList();
+
+        return playerNames.completeWhitelisted(args.get(0), MAX_COMPLETIONS);
+    }
+
+    @Override protected List<String> failed(final Throwable cause) {
+        super.failed(cause);
+        return Collections.singletonList(messages.error("database-error"));
     }
 }
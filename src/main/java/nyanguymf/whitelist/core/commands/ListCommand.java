@@ -0,0 +1,104 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import static java.lang.System.currentTimeMillis;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.command.CommandSender;
+
+import nyanguymf.whitelist.commons.commands.Arguments;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.db.WhitelistQuery;
+import sh.okx.timeapi.api.TimeAPI;
+
+/**
+ * Lists whitelisted players by pages.
+ * <p>
+ * Usage: <tt>/wh list [permanent|expiring «time»] [page]</tt>,
+ * expiring players are ordered by expiry time, others by name.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class ListCommand extends PageCommand {
+    public ListCommand(final MessagesManager messages) {
+        super("list", "twh.list", messages);
+    }
+
+    @Override public CompletableFuture<List<String>> executeAsync(
+        final CommandSender sender, final String alias, final Arguments args
+    ) {
+        if (!super.hasPermission(sender))
+            return null;
+
+        int filterEnd = args.length();
+        int page = 1;
+
+        if (hasPage(args)) {
+            page = parsePage(args.last());
+            filterEnd--;
+
+            if (page == -1)
+                return reply(messages.error("invalid-page", args.last()));
+        }
+
+        WhitelistQuery query;
+        String command;
+
+        if (filterEnd == 0) {
+            query = WhitelistQuery.all(getPageSize());
+            command = "list";
+        } else if ((filterEnd == 1) && args.get(0).equalsIgnoreCase("permanent")) {
+            query = WhitelistQuery.permanent(getPageSize());
+            command = "list permanent";
+        } else if ((filterEnd == 2) && args.get(0).equalsIgnoreCase("expiring")) {
+            TimeAPI within;
+            try {
+                within = new TimeAPI(args.get(1));
+            } catch (IllegalArgumentException ex) {
+                return reply(messages.error("invalid-time-format", args.get(1)));
+            }
+
+            long now = currentTimeMillis();
+            long until = (within.getMilliseconds() > Long.MAX_VALUE - now)
+                    ? Long.MAX_VALUE
+                    : now + within.getMilliseconds();
+            query = WhitelistQuery.expiring(now, until, getPageSize());
+            command = "list expiring " + args.get(1);
+        } else
+            return null;
+
+        return super.show(sender, query, command, page);
+    }
+
+    /** @return <tt>true</tt> if last of given arguments is page number. */
+    static boolean hasPage(final Arguments args) {
+        // in "expiring <time>" last argument is duration, not page
+        if ((args.length() == 2) && args.get(0).equalsIgnoreCase("expiring"))
+            return false;
+
+        return !args.isEmpty() && isPage(args.last());
+    }
+}
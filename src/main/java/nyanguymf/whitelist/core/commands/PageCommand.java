@@ -0,0 +1,196 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.bukkit.command.CommandSender;
+
+import nyanguymf.whitelist.commons.commands.SubCommand;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.PluginSettings;
+import nyanguymf.whitelist.core.db.WhitelistQuery;
+import nyanguymf.whitelist.core.db.WhitelistQuery.Cursor;
+import nyanguymf.whitelist.core.db.WhitelistQuery.Page;
+import nyanguymf.whitelist.core.db.WhitelistedPlayer;
+
+/**
+ * Base of commands which show {@link WhitelistQuery} by pages.
+ * <p>
+ * Cursor of last shown page is remembered for every sender,
+ * so paging forward through the same query never scans
+ * previous pages again.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+abstract class PageCommand extends SubCommand {
+    /** Max amount of senders whose cursors are remembered. */
+    private static final int MAX_CURSORS = 64;
+
+    protected MessagesManager messages;
+    private final Map<String, Position> positions = new LinkedHashMap<String, Position>(16, 0.75F, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override protected boolean removeEldestEntry(final Map.Entry<String, Position> eldest) {
+            return size() > MAX_CURSORS;
+        }
+    };
+
+    protected PageCommand(
+        final String name, final String permission, final MessagesManager messages
+    ) {
+        super(name, permission, messages.usage("whitelist", name));
+
+        this.messages = messages;
+    }
+
+    /** @return amount of players on one page. */
+    protected static int getPageSize() {
+        return PluginSettings.current().getPageSize();
+    }
+
+    /**
+     * Parses page number.
+     *
+     * @return page number or <tt>-1</tt> if it's invalid.
+     */
+    protected static int parsePage(final String page) {
+        try {
+            int number = Integer.parseInt(page);
+            return (number > 0) ? number : -1;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Checks if given argument is page number, durations
+     * like <tt>7d</tt> start with digits too, so it has
+     * to be digits only.
+     *
+     * @return <tt>true</tt> if given argument is page number.
+     */
+    protected static boolean isPage(final String arg) {
+        if (arg.isEmpty())
+            return false;
+
+        for (int i = 0; i < arg.length(); i++) {
+            if (!Character.isDigit(arg.charAt(i)))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Fetches page of query asynchronously and renders it.
+     *
+     * @param   sender      Sender of command.
+     * @param   query       Query to show.
+     * @param   command     Arguments of command without page number,
+     *      which identify query and are shown in next page hint.
+     * @param   number      Number of page starting from 1.
+     */
+    protected CompletableFuture<List<String>> show(
+        final CommandSender sender, final WhitelistQuery query,
+        final String command, final int number
+    ) {
+        String key = sender.getName();
+        Cursor after = null;
+
+        synchronized (positions) {
+            Position position = positions.get(key);
+
+            if ((position != null) && position.command.equals(command)
+                    && (position.page == number - 1)) {
+                after = position.next;
+            }
+        }
+
+        Cursor start = after;
+        return super.supplyAsync(() -> {
+            try {
+                return query.page(number, start);
+            } catch (SQLException ex) {
+                throw new CompletionException(ex);
+            }
+        }).thenApply(page -> {
+            synchronized (positions) {
+                if (page.hasNext()) {
+                    positions.put(key, new Position(command, number, page.getNext()));
+                } else {
+                    positions.remove(key);
+                }
+            }
+
+            return render(page, command, number);
+        });
+    }
+
+    private List<String> render(final Page page, final String command, final int number) {
+        if (page.getPlayers().isEmpty())
+            return Collections.singletonList(messages.info("list-empty"));
+
+        List<String> lines = new ArrayList<>(page.getPlayers().size() + 2);
+        lines.add(messages.info("list-header", String.valueOf(number)));
+
+        for (WhitelistedPlayer player : page.getPlayers()) {
+            String until = (player.getUntil() != 0)
+                    ? messages.formatTime(player.getUntil())
+                    : messages.info("list-permanent");
+
+            lines.add(messages.info("list-entry", player.getName(), until));
+        }
+
+        if (page.hasNext()) {
+            lines.add(messages.info("list-next-page", command, String.valueOf(number + 1)));
+        }
+
+        return lines;
+    }
+
+    @Override protected List<String> failed(final Throwable cause) {
+        super.failed(cause);
+        return Collections.singletonList(messages.error("query-failed"));
+    }
+
+    /** Last shown page of sender. */
+    private static final class Position {
+        private final String command;
+        private final int page;
+        private final Cursor next;
+
+        private Position(final String command, final int page, final Cursor next) {
+            this.command = command;
+            this.page = page;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+import org.bukkit.plugin.Plugin;
+
+import nyanguymf.whitelist.commons.commands.Arguments;
+import nyanguymf.whitelist.core.KnownPlayersIndex;
+import nyanguymf.whitelist.core.PluginSettings;
+
+/**
+ * Resolves player names given to batch commands.
+ * <p>
+ * Every argument may contain several comma separated names
+ * and <tt>@group</tt> tokens, which are expanded to lists
+ * from <tt>groups</tt> section of plug-in config. Names must
+ * be valid Minecraft names.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class PlayerNames {
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_]{1,16}");
+    private KnownPlayersIndex knownPlayers;
+    private WhitelistedNames whitelistedNames;
+
+    PlayerNames(final Plugin plugin, final KnownPlayersIndex knownPlayers) {
+        this.knownPlayers = knownPlayers;
+        whitelistedNames = new WhitelistedNames(plugin);
+        whitelistedNames.refresh();
+    }
+
+    /**
+     * Resolves names from given arguments.
+     *
+     * @param   args    Command arguments.
+     * @param   from    Index of first argument with names.
+     * @param   to      Index after last argument with names.
+     * @return distinct names in order of appearance.
+     * @throws UnresolvedTokenException if group isn't defined
+     *      in config or name isn't valid.
+     */
+    Set<String> resolve(final Arguments args, final int from, final int to) {
+        Set<String> names = new LinkedHashSet<>();
+
+        for (int i = from; i < to; i++) {
+            for (String token : args.get(i).split(",")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+
+                if (token.charAt(0) == '@') {
+                    String group = token.substring(1);
+
+                    List<String> members = PluginSettings.current().getGroup(group);
+
+                    if (members == null)
+                        throw new UnresolvedTokenException("group-not-found", group);
+
+                    for (String member : members) {
+                        names.add(validName(member));
+                    }
+                } else {
+                    names.add(validName(token));
+                }
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Completes last comma separated name or group of argument
+     * with names of players who have ever joined server.
+     *
+     * @param   arg     Argument to complete.
+     * @param   limit   Max amount of completions.
+     */
+    List<String> complete(final String arg, final int limit) {
+        return complete(arg, limit, knownPlayers::startingWith);
+    }
+
+    /**
+     * Completes last comma separated name or group of argument
+     * with names of whitelisted players.
+     *
+     * @param   arg     Argument to complete.
+     * @param   limit   Max amount of completions.
+     */
+    List<String> completeWhitelisted(final String arg, final int limit) {
+        return complete(arg, limit, whitelistedNames::startingWith);
+    }
+
+    private List<String> complete(
+        final String arg, final int limit, final BiFunction<String, Integer, List<String>> players
+    ) {
+        int comma = arg.lastIndexOf(',');
+        String head = arg.substring(0, comma + 1);
+        String token = arg.substring(comma + 1);
+        List<String> completions = new ArrayList<>();
+
+        if (token.startsWith("@")) {
+            String prefix = token.substring(1).toLowerCase();
+            for (String group : PluginSettings.current().getGroupNames()) {
+                if (completions.size() >= limit) {
+                    break;
+                }
+                if (group.toLowerCase().startsWith(prefix)) {
+                    completions.add(head + '@' + group);
+                }
+            }
+
+            return completions;
+        }
+
+        for (String name : players.apply(token, limit)) {
+            completions.add(head + name);
+        }
+
+        return completions;
+    }
+
+    /** @return names from given ones which never joined the server. */
+    List<String> unknown(final Set<String> names) {
+        // while index is loading there's no way to know it without full scan
+        if (!knownPlayers.isLoaded())
+            return Collections.emptyList();
+
+        List<String> unknown = new ArrayList<>();
+        for (String name : names) {
+            if (!knownPlayers.isKnown(name)) {
+                unknown.add(name);
+            }
+        }
+
+        return unknown;
+    }
+
+    /** @return <tt>true</tt> if given name is valid Minecraft name. */
+    static boolean isValidName(final String name) {
+        return NAME_PATTERN.matcher(name).matches();
+    }
+
+    private static String validName(final String name) {
+        if (!isValidName(name))
+            throw new UnresolvedTokenException("invalid-player-name", name);
+
+        return name;
+    }
+
+    /** Thrown if argument can't be resolved to player names. */
+    static final class UnresolvedTokenException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+        private final String messageKey;
+        private final String token;
+
+        UnresolvedTokenException(final String messageKey, final String token) {
+            super(token);
+            this.messageKey = messageKey;
+            this.token = token;
+        }
+
+        /** @return key of error message for sender. */
+        String getMessageKey() {
+            return messageKey;
+        }
+
+        /** @return group or name which can't be resolved. */
+        String getToken() {
+            return token;
+        }
+    }
+}
@@ -22,51 +22,92 @@
  */
 package nyanguymf.whitelist.core.commands;
 
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.isPlayerExists;
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.playerByName;
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.revokeAll;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.bukkit.command.CommandSender;
 
+import nyanguymf.whitelist.commons.commands.Arguments;
 import nyanguymf.whitelist.commons.commands.SubCommand;
 import nyanguymf.whitelist.core.MessagesManager;
-import nyanguymf.whitelist.core.db.WhitelistedPlayer;
 
-/** @author NyanGuyMF - Vasiliy Bely */
+/**
+ * Removes one or many players from whitelist.
+ * <p>
+ * Usage: <tt>/wh remove name[,name] [@group] ...</tt>
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
 final class RemoveCommad extends SubCommand {
+    private static final int MAX_COMPLETIONS = 100;
     private MessagesManager messages;
+    private PlayerNames playerNames;
 
-    public RemoveCommad(final MessagesManager messages) {
+    public RemoveCommad(final MessagesManager messages, final PlayerNames playerNames) {
         super(
             "remove", "twh.remove",
             messages.usage("whitelist", "remove"), new String[] {"rm"}
         );
 
         this.messages = messages;
+        this.playerNames = playerNames;
     }
 
-    @Override public boolean execute(
-        final CommandSender sender, final String alias, final String[] args
+    @Override public CompletableFuture<List<String>> executeAsync(
+        final CommandSender sender, final String alias, final Arguments args
     ) {
         if (!super.hasPermission(sender))
-            return false;
+            return null;
+
+        if (args.isEmpty())
+            return null;
+
+        Set<String> names;
+        try {
+            names = playerNames.resolve(args, 0, args.length());
+        } catch (PlayerNames.UnresolvedTokenException ex) {
+            return reply(messages.error(ex.getMessageKey(), ex.getToken()));
+        }
+
+        if (names.isEmpty())
+            return null;
 
-        if (args.length == 0)
-            return false;
+        return super.supplyAsync(() -> revokeAll(names, new Date()))
+            .thenApply(removed -> Collections.singletonList(summary(names, removed)));
+    }
+
+    private String summary(final Set<String> names, final Set<String> removed) {
+        if (removed == null)
+            return messages.error("database-error");
 
-        if (!isPlayerExists(args[0])) {
-            sender.sendMessage(messages.error("player-doesnt-exist", args[0]));
-            return true;
+        if (names.size() == 1) {
+            String name = names.iterator().next();
+
+            return removed.isEmpty()
+                    ? messages.error("player-doesnt-exists", name)
+                    : messages.info("player-removed", name);
         }
 
-        WhitelistedPlayer player = playerByName(args[0]);
-        player.setWhitelisted(false);
-        player.setUntil(new Date());
-        player.save();
+        return messages.info(
+            "batch-removed",
+            String.valueOf(removed.size()), String.valueOf(names.size() - removed.size())
+        );
+    }
+
+    @Override protected List<String> failed(final Throwable cause) {
+        super.failed(cause);
+        return Collections.singletonList(messages.error("database-error"));
+    }
 
-        sender.sendMessage(messages.info("player-removed", args[0]));
+    @Override public List<String> tabComplete(final CommandSender sender, final Arguments args) {
+        if (args.isEmpty())
+            return Collections.emptyList();
 
-        return true;
+        return playerNames.completeWhitelisted(args.last(), MAX_COMPLETIONS);
     }
 }
@@ -0,0 +1,82 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.command.CommandSender;
+
+import nyanguymf.whitelist.commons.commands.Arguments;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.db.WhitelistQuery;
+
+/**
+ * Finds whitelisted players by beginning of their name.
+ * <p>
+ * Usage: <tt>/wh search «name» [page]</tt>
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class SearchCommand extends PageCommand {
+    private static final int MAX_COMPLETIONS = 100;
+    private PlayerNames playerNames;
+
+    public SearchCommand(final MessagesManager messages, final PlayerNames playerNames) {
+        super("search", "twh.search", messages);
+
+        this.playerNames = playerNames;
+    }
+
+    @Override public CompletableFuture<List<String>> executeAsync(
+        final CommandSender sender, final String alias, final Arguments args
+    ) {
+        if (!super.hasPermission(sender))
+            return null;
+
+        if (args.isEmpty() || (args.length() > 2))
+            return null;
+
+        int page = 1;
+        if (args.length() == 2) {
+            page = parsePage(args.get(1));
+
+            if (page == -1)
+                return reply(messages.error("invalid-page", args.get(1)));
+        }
+
+        String prefix = args.get(0);
+
+        return super.show(
+            sender, WhitelistQuery.search(prefix, getPageSize()), "search " + prefix, page
+        );
+    }
+
+    @Override public List<String> tabComplete(final CommandSender sender, final Arguments args) {
+        if (args.length() != 1)
+            return Collections.emptyList();
+
+        return playerNames.completeWhitelisted(args.get(0), MAX_COMPLETIONS);
+    }
+}
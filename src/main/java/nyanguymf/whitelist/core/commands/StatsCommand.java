@@ -0,0 +1,106 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import org.bukkit.command.CommandSender;
+
+import nyanguymf.whitelist.commons.commands.Arguments;
+import nyanguymf.whitelist.commons.commands.CommandManager;
+import nyanguymf.whitelist.commons.commands.CommandMetrics;
+import nyanguymf.whitelist.commons.commands.SubCommand;
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+import nyanguymf.whitelist.commons.db.PoolStatistics;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.db.UnknownPlayersWriter;
+import nyanguymf.whitelist.core.db.WhitelistFilter;
+
+/** @author NyanGuyMF - Vasiliy Bely */
+final class StatsCommand extends SubCommand {
+    private MessagesManager messages;
+    private UnknownPlayersWriter unknownPlayers;
+    private DatabaseManager databaseManager;
+    private CommandManager commandManager;
+
+    public StatsCommand(
+        final MessagesManager messages, final UnknownPlayersWriter unknownPlayers,
+        final DatabaseManager databaseManager, final CommandManager commandManager
+    ) {
+        super("stats", "twh.stats", messages.usage("whitelist", "stats"));
+
+        this.messages = messages;
+        this.unknownPlayers = unknownPlayers;
+        this.databaseManager = databaseManager;
+        this.commandManager = commandManager;
+    }
+
+    @Override public boolean execute(
+        final CommandSender sender, final String alias, final Arguments args
+    ) {
+        if (!super.hasPermission(sender))
+            return false;
+
+        sender.sendMessage(messages.info(
+            "write-behind-stats",
+            String.valueOf(unknownPlayers.getPending()),
+            String.valueOf(unknownPlayers.getFlushed()),
+            String.valueOf(unknownPlayers.getDeduped()),
+            String.valueOf(unknownPlayers.getDropped())
+        ));
+
+        if (WhitelistFilter.isLoaded()) {
+            sender.sendMessage(messages.info(
+                "login-filter-stats",
+                String.valueOf(WhitelistFilter.getMemoryBytes() / 1_024),
+                String.valueOf(WhitelistFilter.getHashes()),
+                String.format("%.3f", 100 * WhitelistFilter.expectedFalsePositiveRate()),
+                String.valueOf(WhitelistFilter.getRejected())
+            ));
+        }
+
+        PoolStatistics pool = databaseManager.getPoolStatistics();
+        if (pool != null) {
+            sender.sendMessage(messages.info(
+                "pool-stats",
+                String.valueOf(pool.getActive()),
+                String.valueOf(pool.getIdle()),
+                String.valueOf(pool.getMaxSize()),
+                String.valueOf(pool.getWaiting()),
+                String.valueOf(pool.getAverageWaitMicros() / 1_000D),
+                String.valueOf(pool.getMaxWaitMicros() / 1_000D)
+            ));
+        }
+
+        for (CommandMetrics metrics : commandManager.getMetrics().values()) {
+            sender.sendMessage(messages.info(
+                "command-stats",
+                metrics.getName(),
+                String.valueOf(metrics.getExecutions()),
+                String.valueOf(metrics.getFailures()),
+                String.valueOf(metrics.getAverageMicros() / 1_000D),
+                String.valueOf(metrics.getMaxMicros() / 1_000D)
+            ));
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import static org.bukkit.Bukkit.getScheduler;
+
+import java.nio.file.Path;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import nyanguymf.whitelist.commons.commands.SubCommand;
+import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.db.WhitelistTransfer;
+
+/**
+ * Base of commands which run {@link WhitelistTransfer}
+ * on worker thread.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+abstract class TransferCommand extends SubCommand {
+    /** Min time in milliseconds between progress messages. */
+    private static final long PROGRESS_INTERVAL = 2_000;
+
+    protected MessagesManager messages;
+    protected Plugin plugin;
+    protected WhitelistTransfer transfer;
+
+    protected TransferCommand(
+        final String name, final String permission, final MessagesManager messages,
+        final Plugin plugin, final WhitelistTransfer transfer
+    ) {
+        super(name, permission, messages.usage("whitelist", name));
+
+        this.messages = messages;
+        this.plugin = plugin;
+        this.transfer = transfer;
+    }
+
+    /**
+     * Resolves file name against plug-in folder.
+     *
+     * @return file or <tt>null</tt> if it's outside of plug-in folder.
+     */
+    protected Path resolve(final String fileName) {
+        Path folder = plugin.getDataFolder().toPath().toAbsolutePath().normalize();
+        Path file = folder.resolve(fileName).normalize();
+
+        return file.startsWith(folder) && !file.equals(folder) ? file : null;
+    }
+
+    /** Sends message to sender from main thread. */
+    protected void reply(final CommandSender sender, final String message) {
+        getScheduler().runTask(plugin, () -> sender.sendMessage(message));
+    }
+
+    /**
+     * Creates progress listener which reports to sender
+     * not more often than once in {@value #PROGRESS_INTERVAL}ms.
+     *
+     * @param   key     Info message key with rows and rate slots.
+     * @param   start   Start of transfer in epoch millis.
+     */
+    protected WhitelistTransfer.Progress progress(
+        final CommandSender sender, final String key, final long start
+    ) {
+        long[] lastReport = {start};
+
+        return rows -> {
+            long now = System.currentTimeMillis();
+
+            if (now - lastReport[0] >= PROGRESS_INTERVAL) {
+                lastReport[0] = now;
+                reply(sender, messages.info(key, String.valueOf(rows), rate(rows, start, now)));
+            }
+        };
+    }
+
+    /** @return transferred rows per second. */
+    protected static String rate(final long rows, final long start, final long now) {
+        return String.valueOf(rows * 1_000 / Math.max(1, now - start));
+    }
+
+    /** @return elapsed seconds with millis precision. */
+    protected static String seconds(final long start, final long now) {
+        return String.valueOf((now - start) / 1_000D);
+    }
+}
@@ -22,19 +22,42 @@
  */
 package nyanguymf.whitelist.core.commands;
 
+import org.bukkit.plugin.java.JavaPlugin;
+
 import nyanguymf.whitelist.commons.commands.CommandManager;
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+import nyanguymf.whitelist.core.KnownPlayersIndex;
 import nyanguymf.whitelist.core.MessagesManager;
 import nyanguymf.whitelist.core.WhitelistManager;
+import nyanguymf.whitelist.core.db.UnknownPlayersWriter;
+import nyanguymf.whitelist.core.db.WhitelistTransfer;
 
 /** @author NyanGuyMF - Vasiliy Bely */
 public final class WhitelistCommand extends CommandManager {
-    public WhitelistCommand(final MessagesManager messages, final WhitelistManager whManager) {
-        super("whitelist", messages.usage("whitelist", "whitelist"));
+    public WhitelistCommand(
+        final MessagesManager messages, final WhitelistManager whManager,
+        final UnknownPlayersWriter unknownPlayers, final DatabaseManager databaseManager,
+        final KnownPlayersIndex knownPlayers, final JavaPlugin plugin
+    ) {
+        super(
+            "whitelist", messages.usage("whitelist", "whitelist"),
+            plugin.getConfig().getInt("commands.threads", 2)
+        );
 
-        super.addSub(new AddCommand(messages));
-        super.addSub(new RemoveCommad(messages));
+        PlayerNames playerNames = new PlayerNames(plugin, knownPlayers);
+        super.addSub(new AddCommand(messages, playerNames));
+        super.addSub(new RemoveCommad(messages, playerNames));
         super.addSub(new EnableCommand(messages, whManager));
         super.addSub(new DisableCommand(messages, whManager));
-        super.addSub(new InfoCommand(messages));
+        super.addSub(new InfoCommand(messages, playerNames));
+        super.addSub(new ListCommand(messages));
+        super.addSub(new SearchCommand(messages, playerNames));
+        super.addSub(new StatsCommand(messages, unknownPlayers, databaseManager, this));
+
+        WhitelistTransfer transfer = new WhitelistTransfer(
+            plugin.getConfig().getInt("transfer.batch-size", 1_000)
+        );
+        super.addSub(new ImportCommand(messages, plugin, transfer));
+        super.addSub(new ExportCommand(messages, plugin, transfer));
     }
 }
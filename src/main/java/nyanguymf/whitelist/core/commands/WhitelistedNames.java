@@ -0,0 +1,99 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import static java.lang.System.currentTimeMillis;
+import static org.bukkit.Bukkit.getScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bukkit.plugin.Plugin;
+
+import nyanguymf.whitelist.commons.commands.PrefixIndex;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+
+/**
+ * Names of whitelisted players for tab completion.
+ * <p>
+ * Names are kept as {@link PrefixIndex} snapshot of
+ * {@link WhitelistIndex}. When index version changes,
+ * snapshot is rebuilt asynchronously and previous one
+ * is used meanwhile, so completion never sorts names
+ * on main thread.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class WhitelistedNames {
+    private final AtomicBoolean isBuilding = new AtomicBoolean(false);
+    private Plugin plugin;
+    private volatile PrefixIndex names = PrefixIndex.of();
+    private volatile long version = -1;
+
+    WhitelistedNames(final Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Gets names of whitelisted players which start with
+     * given prefix ignoring case, in alphabetical order.
+     *
+     * @param   prefix  Prefix of names.
+     * @param   limit   Max amount of names to return.
+     */
+    List<String> startingWith(final String prefix, final int limit) {
+        refresh();
+        return names.startingWith(prefix, limit);
+    }
+
+    /** Starts rebuild of names if index was changed since last one. */
+    void refresh() {
+        long indexVersion = WhitelistIndex.version();
+
+        if ((indexVersion == version) || !isBuilding.compareAndSet(false, true))
+            return;
+
+        getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                build(indexVersion);
+            } finally {
+                isBuilding.set(false);
+            }
+        });
+    }
+
+    private void build(final long indexVersion) {
+        List<String> whitelisted = new ArrayList<>(WhitelistIndex.size());
+        long now = currentTimeMillis();
+
+        WhitelistIndex.forEach((uuid, entry) -> {
+            if (entry.isWhitelisted() && ((entry.getUntil() == 0) || (entry.getUntil() > now))) {
+                whitelisted.add(entry.getName());
+            }
+        });
+
+        names = PrefixIndex.of(whitelisted);
+        version = indexVersion;
+    }
+}
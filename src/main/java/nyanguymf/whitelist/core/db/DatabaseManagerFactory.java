@@ -25,6 +25,7 @@ package nyanguymf.whitelist.core.db;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.UUID;
 
 import org.bukkit.plugin.Plugin;
 
@@ -37,6 +38,14 @@ import nyanguymf.whitelist.core.yaml.YamlDatabaseConfiguration;
 
 /** @author NyanGuyMF - Vasiliy Bely */
 public final class DatabaseManagerFactory {
+    /**
+     * Connects to database from <tt>database.yml</tt> and
+     * initializes DAOs.
+     *
+     * @return database manager, it isn't connected if connection
+     *      failed, or <tt>null</tt> if config can't be loaded or
+     *      <tt>players</tt> table can't be migrated.
+     */
     public static DatabaseManager loadDatabaseManager(final Plugin plugin) {
         DatabaseConfiguration databaseConfig = loadConfig(plugin);
 
@@ -54,17 +63,68 @@ public final class DatabaseManagerFactory {
             return databaseManager;
         }
 
+        if (!initDaos(databaseManager)) {
+            closeQuietly(databaseManager);
+            return null;
+        }
+
+        return databaseManager;
+    }
+
+    /**
+     * Creates DAOs of given connected database manager
+     * and migrates their tables.
+     *
+     * @return <tt>true</tt> if DAOs are ready to use.
+     */
+    public static boolean initDaos(final DatabaseManager databaseManager) {
         try {
-            Dao<WhitelistedPlayer, String> playersDao = DaoManager.createDao(
+            Dao<WhitelistedPlayer, UUID> playersDao = DaoManager.createDao(
                 databaseManager.getConnection(), WhitelistedPlayer.class
             );
 
-            WhitelistedPlayer.initDao(playersDao);
+            WhitelistedPlayer.initDao(playersDao, databaseManager);
         } catch (SQLException ex) {
             System.err.printf("Unable to create dao: %s\n", ex.getLocalizedMessage());
+            return false;
         }
 
-        return databaseManager;
+        return true;
+    }
+
+    private static void closeQuietly(final DatabaseManager databaseManager) {
+        try {
+            databaseManager.close();
+        } catch (IOException ex) {
+            System.err.printf("Unable to close database: %s\n", ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Reads <tt>database.yml</tt> again and reconnects given
+     * manager with new settings.
+     *
+     * @return <tt>true</tt> if reconnected successfully.
+     */
+    public static boolean reloadDatabaseManager(
+        final Plugin plugin, final DatabaseManager databaseManager
+    ) {
+        File configFile = new File(plugin.getDataFolder(), "database.yml");
+        YamlDatabaseConfiguration databaseConfig
+                = new YamlDatabaseConfiguration(configFile.toPath());
+
+        try {
+            databaseConfig.load();
+        } catch (Exception ex) {
+            System.err.printf("Unable to reload database.yml: %s\n", ex.getLocalizedMessage());
+            return false;
+        }
+
+        if (databaseConfig.getDriverName().equalsIgnoreCase("h2")) {
+            databaseConfig.setHost(plugin.getDataFolder().getAbsolutePath());
+        }
+
+        return databaseManager.reconnect(databaseConfig);
     }
 
     private static DatabaseConfiguration loadConfig(final Plugin plugin) {
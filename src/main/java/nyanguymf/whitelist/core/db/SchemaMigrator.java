@@ -0,0 +1,321 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.db;
+
+import static com.j256.ormlite.misc.TransactionManager.callInTransaction;
+import static com.j256.ormlite.table.TableUtils.createTable;
+
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+/**
+ * Versioned migrations of <tt>players</tt> table.
+ * <p>
+ * Current version is stored in <tt>schema_version</tt> table,
+ * databases created before it appeared are version 1.
+ * Every step is recorded right after it's done, so interrupted
+ * migration continues from the step it was interrupted at.
+ * <ol>
+ * <li>initial schema, <tt>until</tt> is date string;</li>
+ * <li><tt>until_millis BIGINT</tt> column added;</li>
+ * <li>dates copied into <tt>until_millis</tt> by chunks;</li>
+ * <li>old <tt>until</tt> column dropped;</li>
+ * <li><tt>until_millis</tt> renamed to <tt>until</tt>;</li>
+ * <li><tt>players_until_idx</tt> index created;</li>
+ * <li><tt>uuid</tt> column added;</li>
+ * <li><tt>name_lower</tt> column added;</li>
+ * <li>both filled by chunks, players get offline ids;</li>
+ * <li><tt>uuid</tt> made not null;</li>
+ * <li>primary key on <tt>name</tt> dropped;</li>
+ * <li>primary key on <tt>uuid</tt> added;</li>
+ * <li><tt>players_name_lower_idx</tt> index created.</li>
+ * </ol>
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class SchemaMigrator {
+    static final int LATEST_VERSION = 13;
+    private static final String VERSION_TABLE = "schema_version";
+    /** Format in which ORMLite stored dates as strings. */
+    private static final String DATE_STRING_FORMAT = "yyyy-MM-dd HH:mm:ss.SSSSSS";
+    private static final int CHUNK_SIZE = 1_000;
+    private final Dao<WhitelistedPlayer, UUID> dao;
+    private final DatabaseType databaseType;
+    private final Consumer<String> console;
+
+    /**
+     * @param   dao         Players DAO.
+     * @param   console     Receiver of progress messages.
+     */
+    SchemaMigrator(final Dao<WhitelistedPlayer, UUID> dao, final Consumer<String> console) {
+        this.dao = dao;
+        this.console = console;
+        databaseType = dao.getConnectionSource().getDatabaseType();
+    }
+
+    /**
+     * Creates <tt>players</tt> table or migrates it to
+     * {@link #LATEST_VERSION}.
+     *
+     * @return <tt>true</tt> if table is up to date.
+     */
+    boolean migrate() {
+        int version = 0;
+
+        try {
+            if (!dao.isTableExists()) {
+                createTable(dao);
+                createVersionTable(LATEST_VERSION);
+                return true;
+            }
+
+            if (!isTableExists(VERSION_TABLE)) {
+                createVersionTable(1);
+            }
+
+            version = (int) dao.queryRawValue(sql("SELECT {version} FROM {schema_version}"));
+
+            while (version < LATEST_VERSION) {
+                console.accept(String.format(
+                    "\u00a73TemporalWhitelist \u00a78» \u00a7eMigrating players table to version %d...",
+                    version + 1
+                ));
+                migrateFrom(version);
+                dao.executeRaw(
+                    sql("UPDATE {schema_version} SET {version} = ?"), String.valueOf(++version)
+                );
+            }
+
+            return true;
+        } catch (SQLException ex) {
+            System.err.printf(
+                "Unable to migrate players table to version %d: %s\n",
+                version + 1, ex.getLocalizedMessage()
+            );
+            return false;
+        }
+    }
+
+    private void migrateFrom(final int version) throws SQLException {
+        switch (version) {
+        case 1:
+            dao.executeRaw(sql(
+                "ALTER TABLE {players} ADD COLUMN {until_millis} BIGINT DEFAULT 0 NOT NULL"
+            ));
+            break;
+        case 2:
+            copyUntil();
+            break;
+        case 3:
+            dao.executeRaw(sql("ALTER TABLE {players} DROP COLUMN {until}"));
+            break;
+        case 4:
+            if (databaseType.getDatabaseName().equalsIgnoreCase("MySQL")) {
+                dao.executeRaw(sql(
+                    "ALTER TABLE {players} CHANGE COLUMN {until_millis} {until}"
+                    + " BIGINT DEFAULT 0 NOT NULL"
+                ));
+            } else {
+                dao.executeRaw(sql(
+                    "ALTER TABLE {players} ALTER COLUMN {until_millis} RENAME TO {until}"
+                ));
+            }
+            break;
+        case 5:
+            dao.executeRaw(sql("CREATE INDEX {players_until_idx} ON {players} ({until})"));
+            break;
+        case 6:
+            dao.executeRaw(sql("ALTER TABLE {players} ADD COLUMN {uuid} VARCHAR(48)"));
+            break;
+        case 7:
+            dao.executeRaw(sql("ALTER TABLE {players} ADD COLUMN {name_lower} VARCHAR(255)"));
+            break;
+        case 8:
+            fillIds();
+            break;
+        case 9:
+            if (databaseType.getDatabaseName().equalsIgnoreCase("MySQL")) {
+                dao.executeRaw(sql("ALTER TABLE {players} MODIFY {uuid} VARCHAR(48) NOT NULL"));
+            } else {
+                dao.executeRaw(sql("ALTER TABLE {players} ALTER COLUMN {uuid} SET NOT NULL"));
+            }
+            break;
+        case 10:
+            dao.executeRaw(sql("ALTER TABLE {players} DROP PRIMARY KEY"));
+            break;
+        case 11:
+            dao.executeRaw(sql("ALTER TABLE {players} ADD PRIMARY KEY ({uuid})"));
+            break;
+        case 12:
+            dao.executeRaw(sql("CREATE INDEX {players_name_lower_idx} ON {players} ({name_lower})"));
+            break;
+        default:
+            throw new SQLException("Unknown schema version " + version);
+        }
+    }
+
+    /**
+     * Converts string dates into epoch millis.
+     * <p>
+     * Rows are walked by primary key in chunks of {@value #CHUNK_SIZE},
+     * each chunk is updated in its own transaction, so neither table
+     * is loaded into heap nor it's locked for whole migration.
+     */
+    private void copyUntil() throws SQLException {
+        SimpleDateFormat format = new SimpleDateFormat(DATE_STRING_FORMAT);
+        String select = sql(
+            "SELECT {name}, {until} FROM {players} WHERE {name} > ? AND {until} IS NOT NULL"
+            + " ORDER BY {name} LIMIT " + CHUNK_SIZE
+        );
+        String update = sql("UPDATE {players} SET {until_millis} = ? WHERE {name} = ?");
+        String revoke = sql("UPDATE {players} SET {is_whitelisted} = FALSE WHERE {name} = ?");
+        String lastName = "";
+        long converted = 0;
+
+        while (true) {
+            List<String[]> rows = dao.queryRaw(select, lastName).getResults();
+
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            callInTransaction(dao.getConnectionSource(), () -> {
+                for (String[] row : rows) {
+                    long until = parseUntil(format, row[1]);
+
+                    if (until < 0) {
+                        // there's no safe expiry time for it, so it's revoked
+                        System.err.printf(
+                            "Unable to convert until «%s» of %s, whitelist revoked.\n",
+                            row[1], row[0]
+                        );
+                        dao.executeRaw(revoke, row[0]);
+                    } else {
+                        dao.executeRaw(update, String.valueOf(until), row[0]);
+                    }
+                }
+                return null;
+            });
+
+            lastName = rows.get(rows.size() - 1)[0];
+            converted += rows.size();
+        }
+
+        console.accept(String.format(
+            "\u00a73TemporalWhitelist \u00a78» \u00a7eConverted %d dates.", converted
+        ));
+    }
+
+    /**
+     * Fills <tt>uuid</tt> with offline ids and <tt>name_lower</tt>
+     * with lowercase names by chunks of {@value #CHUNK_SIZE}.
+     * <p>
+     * Online mode server gives players other ids, so they are
+     * moved to them on first login, see {@link WhitelistedPlayer#claim}.
+     */
+    private void fillIds() throws SQLException {
+        String select = sql(
+            "SELECT {name} FROM {players} WHERE {name} > ? AND {uuid} IS NULL"
+            + " ORDER BY {name} LIMIT " + CHUNK_SIZE
+        );
+        String update = sql("UPDATE {players} SET {uuid} = ?, {name_lower} = ? WHERE {name} = ?");
+        String lastName = "";
+
+        while (true) {
+            List<String[]> rows = dao.queryRaw(select, lastName).getResults();
+
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            callInTransaction(dao.getConnectionSource(), () -> {
+                for (String[] row : rows) {
+                    dao.executeRaw(
+                        update, WhitelistedPlayer.offlineId(row[0]).toString(),
+                        WhitelistedPlayer.lower(row[0]), row[0]
+                    );
+                }
+                return null;
+            });
+
+            lastName = rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    /** @return epoch millis or <tt>-1</tt> if value can't be parsed. */
+    private static long parseUntil(final SimpleDateFormat format, final String value) {
+        if (value.chars().allMatch(Character::isDigit)) {
+            // column could already hold epoch millis
+            return Long.parseLong(value);
+        }
+
+        try {
+            return format.parse(value).getTime();
+        } catch (ParseException ex) {
+            return -1;
+        }
+    }
+
+    private void createVersionTable(final int version) throws SQLException {
+        dao.executeRaw(sql("CREATE TABLE {schema_version} ({version} INTEGER NOT NULL)"));
+        dao.executeRaw(
+            sql("INSERT INTO {schema_version} ({version}) VALUES (?)"), String.valueOf(version)
+        );
+    }
+
+    private boolean isTableExists(final String tableName) throws SQLException {
+        ConnectionSource source = dao.getConnectionSource();
+        DatabaseConnection connection = source.getReadOnlyConnection(tableName);
+
+        try {
+            return connection.isTableExists(tableName);
+        } finally {
+            source.releaseConnection(connection);
+        }
+    }
+
+    /** Replaces every <tt>{name}</tt> with escaped entity name. */
+    private String sql(final String template) {
+        StringBuilder sql = new StringBuilder(template.length() + 16);
+        int from = 0;
+        int open;
+
+        while ((open = template.indexOf('{', from)) != -1) {
+            int close = template.indexOf('}', open);
+            sql.append(template, from, open);
+            databaseType.appendEscapedEntityName(sql, template.substring(open + 1, close));
+            from = close + 1;
+        }
+
+        return sql.append(template, from, template.length()).toString();
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.db;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.j256.ormlite.dao.Dao;
+
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+
+/**
+ * Write-behind buffer for players who tried to join,
+ * but aren't known yet.
+ * <p>
+ * Players are deduplicated by id in memory and periodically
+ * flushed by asynchronous worker as one batch insert.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class UnknownPlayersWriter implements Closeable {
+    /** Max time {@link #close()} waits for running flush, in seconds. */
+    private static final long CLOSE_TIMEOUT = 10;
+    private final Map<UUID, String> pending = new ConcurrentHashMap<>();
+    /** Held by running flush. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong deduped = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final int flushSize;
+    private final int capacity;
+    private Plugin plugin;
+    private BukkitTask flushTask;
+
+    /**
+     * @param   flushSize   Max amount of rows inserted by one flush;
+     *      reaching it also triggers flush.
+     * @param   capacity    Max amount of pending players, others
+     *      will be dropped.
+     */
+    public UnknownPlayersWriter(final int flushSize, final int capacity) {
+        this.flushSize = flushSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Starts periodic flush.
+     *
+     * @param   plugin          Owner of flush task.
+     * @param   flushInterval   Flush interval in ticks.
+     */
+    public void start(final Plugin plugin, final long flushInterval) {
+        this.plugin = plugin;
+        flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(
+            plugin, this::flush, flushInterval, flushInterval
+        );
+    }
+
+    /**
+     * Queues unknown player for insertion.
+     *
+     * @param   uuid        Id of unknown player.
+     * @param   playerName  Name of unknown player.
+     * @return <tt>true</tt> if player was queued.
+     */
+    public boolean offer(final UUID uuid, final String playerName) {
+        if (WhitelistIndex.entry(uuid) != null) {
+            deduped.incrementAndGet();
+            return false;
+        }
+
+        if (pending.size() >= capacity) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        if (pending.putIfAbsent(uuid, playerName) != null) {
+            deduped.incrementAndGet();
+            return false;
+        }
+
+        if ((pending.size() >= flushSize) && (plugin != null) && !flushLock.isLocked()) {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, this::flush);
+        }
+
+        return true;
+    }
+
+    /** Inserts pending players, at most flush size rows per batch. */
+    public void flush() {
+        if (!flushLock.tryLock())
+            return;
+
+        try {
+            insertPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void insertPending() {
+        while (!pending.isEmpty()) {
+            List<WhitelistedPlayer> batch = drain();
+
+            if (!batch.isEmpty()) {
+                insert(batch);
+            }
+        }
+    }
+
+    private List<WhitelistedPlayer> drain() {
+        List<WhitelistedPlayer> batch = new ArrayList<>(Math.min(flushSize, pending.size()));
+        Iterator<Map.Entry<UUID, String>> iterator = pending.entrySet().iterator();
+
+        while (iterator.hasNext() && (batch.size() < flushSize)) {
+            Map.Entry<UUID, String> player = iterator.next();
+            iterator.remove();
+
+            if (WhitelistIndex.entry(player.getKey()) != null) {
+                deduped.incrementAndGet();
+                continue;
+            }
+
+            batch.add(new WhitelistedPlayer(player.getKey(), player.getValue()));
+        }
+
+        return batch;
+    }
+
+    private void insert(final List<WhitelistedPlayer> batch) {
+        Dao<WhitelistedPlayer, UUID> dao = WhitelistedPlayer.getDao();
+        DatabaseManager database = WhitelistedPlayer.getDatabase();
+
+        try {
+            database.execute(() -> inBatch(dao, () -> {
+                for (WhitelistedPlayer player : batch) {
+                    dao.create(player);
+                }
+            }));
+        } catch (SQLException ex) {
+            // some of players already exist: insert one by one
+            try {
+                database.execute(() -> inBatch(dao, () -> {
+                    for (WhitelistedPlayer player : batch) {
+                        dao.createIfNotExists(player);
+                    }
+                }));
+            } catch (SQLException retryEx) {
+                dropped.addAndGet(batch.size());
+                System.err.printf(
+                    "Unable to insert unknown players: %s\n", retryEx.getLocalizedMessage()
+                );
+                return;
+            }
+        }
+
+        for (WhitelistedPlayer player : batch) {
+            WhitelistIndex.put(player);
+        }
+        flushed.addAndGet(batch.size());
+    }
+
+    /** Runs given inserts as ORMLite batch task. */
+    private static Void inBatch(
+        final Dao<WhitelistedPlayer, UUID> dao, final BatchInserts inserts
+    ) throws SQLException {
+        try {
+            return dao.callBatchTasks(() -> {
+                inserts.run();
+                return null;
+            });
+        } catch (SQLException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new SQLException(ex);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchInserts {
+        void run() throws SQLException;
+    }
+
+    /** @return amount of players waiting for flush. */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /** @return amount of players dropped because buffer was full or insert failed. */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /** @return amount of players who were already known or queued. */
+    public long getDeduped() {
+        return deduped.get();
+    }
+
+    /** @return amount of inserted rows. */
+    public long getFlushed() {
+        return flushed.get();
+    }
+
+    /** Stops periodic flush and flushes remaining players. */
+    @Override public void close() {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+
+        // wait for running flush, otherwise its remainder will be lost
+        try {
+            if (!flushLock.tryLock(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                System.err.printf(
+                    "Unable to insert %d unknown players: flush isn't finished in %d seconds.\n",
+                    pending.size(), CLOSE_TIMEOUT
+                );
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            insertPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.db;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Line-based formats of whitelist files.
+ * <p>
+ * Every line is a single player, so files are read and
+ * written as streams. Expiration time is written as ISO-8601
+ * instant and read either as instant or as epoch millis.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public enum WhitelistFileFormat {
+    /**
+     * Comma-separated <tt>name,whitelisted,until,uuid</tt>.
+     * <p>
+     * Only name is required: <tt>Notch</tt> line whitelists
+     * Notch forever. Header line and lines starting with
+     * <tt>#</tt> are skipped.
+     */
+    CSV("csv", "txt") {
+        @Override WhitelistedPlayer parse(final String line) {
+            String trimmed = line.trim();
+
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || isHeader(trimmed))
+                return null;
+
+            String[] columns = trimmed.split(",", -1);
+
+            if (columns.length > 4)
+                throw new IllegalArgumentException("too many columns");
+
+            String name = playerName(columns[0].trim());
+            WhitelistedPlayer player = new WhitelistedPlayer(
+                (columns.length > 3) ? uuid(name, columns[3].trim()) : WhitelistedPlayer.idOf(name),
+                name, (columns.length > 2) ? until(columns[2].trim()) : 0
+            );
+            player.setWhitelisted(
+                (columns.length > 1) ? whitelisted(columns[1].trim()) : true
+            );
+
+            return player;
+        }
+
+        @Override String format(final WhitelistedPlayer player) {
+            return player.getName() + ',' + player.isWhitelisted() + ','
+                    + ((player.getUntil() == 0) ? "" : Instant.ofEpochMilli(player.getUntil()))
+                    + ',' + player.getUniqueId();
+        }
+
+        @Override String header() {
+            return "name,whitelisted,until,uuid";
+        }
+
+        private boolean isHeader(final String line) {
+            return line.toLowerCase(Locale.ROOT).startsWith("name,")
+                    || line.equalsIgnoreCase("name");
+        }
+    },
+
+    /**
+     * Newline-delimited JSON, one object per line:
+     * <tt>{"name":"Notch","whitelisted":true,"until":"2020-01-01T00:00:00Z","uuid":"..."}</tt>.
+     * <p>
+     * Only name is required, blank lines are skipped.
+     */
+    NDJSON("ndjson", "jsonl") {
+        @Override WhitelistedPlayer parse(final String line) {
+            if (line.trim().isEmpty())
+                return null;
+
+            JsonObject json;
+            try {
+                json = new JsonParser().parse(line).getAsJsonObject();
+            } catch (JsonParseException | IllegalStateException ex) {
+                throw new IllegalArgumentException("invalid JSON object", ex);
+            }
+
+            JsonElement name = json.get("name");
+            JsonElement whitelisted = json.get("whitelisted");
+            JsonElement until = json.get("until");
+            JsonElement uuid = json.get("uuid");
+
+            if ((name == null) || !name.isJsonPrimitive())
+                throw new IllegalArgumentException("name is missing");
+
+            String playerName = playerName(name.getAsString());
+            WhitelistedPlayer player = new WhitelistedPlayer(
+                ((uuid == null) || uuid.isJsonNull())
+                    ? WhitelistedPlayer.idOf(playerName)
+                    : uuid(playerName, uuid.getAsString()),
+                playerName,
+                ((until == null) || until.isJsonNull()) ? 0 : until(until.getAsString())
+            );
+            player.setWhitelisted(
+                ((whitelisted == null) || whitelisted.isJsonNull())
+                ? true
+                : whitelisted(whitelisted.getAsString())
+            );
+
+            return player;
+        }
+
+        @Override String format(final WhitelistedPlayer player) {
+            JsonObject json = new JsonObject();
+            json.addProperty("name", player.getName());
+            json.addProperty("whitelisted", player.isWhitelisted());
+            json.addProperty(
+                "until",
+                (player.getUntil() == 0) ? null : Instant.ofEpochMilli(player.getUntil()).toString()
+            );
+            json.addProperty("uuid", player.getUniqueId().toString());
+
+            return json.toString();
+        }
+    };
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_]{1,16}");
+    private final String[] extensions;
+
+    private WhitelistFileFormat(final String... extensions) {
+        this.extensions = extensions;
+    }
+
+    /**
+     * Parses single line of file.
+     *
+     * @param   line    Line to parse.
+     * @return player or <tt>null</tt> if line should be skipped.
+     * @throws IllegalArgumentException if line is malformed.
+     */
+    abstract WhitelistedPlayer parse(String line);
+
+    /** Formats given player as single line. */
+    abstract String format(WhitelistedPlayer player);
+
+    /** Gets first line of file or <tt>null</tt> if format doesn't have one. */
+    String header() {
+        return null;
+    }
+
+    /**
+     * Finds format by extension of given file name.
+     * <p>
+     * Returns <tt>null</tt> if format isn't supported.
+     */
+    public static WhitelistFileFormat byFileName(final String fileName) {
+        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+
+        for (WhitelistFileFormat format : WhitelistFileFormat.values()) {
+            for (String extension : format.extensions) {
+                if (lowerCaseName.endsWith('.' + extension))
+                    return format;
+            }
+        }
+
+        return null;
+    }
+
+    private static String playerName(final String name) {
+        if (!NAME_PATTERN.matcher(name).matches())
+            throw new IllegalArgumentException("invalid player name «" + name + "»");
+
+        return name;
+    }
+
+    /** Parses id, if it's empty, id is resolved by player name. */
+    private static UUID uuid(final String playerName, final String value) {
+        if (value.isEmpty())
+            return WhitelistedPlayer.idOf(playerName);
+
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("invalid uuid «" + value + "»", ex);
+        }
+    }
+
+    private static boolean whitelisted(final String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+        case "":
+        case "true":
+        case "yes":
+        case "1":
+            return true;
+        case "false":
+        case "no":
+        case "0":
+            return false;
+        default:
+            throw new IllegalArgumentException("invalid whitelisted value «" + value + "»");
+        }
+    }
+
+    private static long until(final String value) {
+        if (value.isEmpty())
+            return 0;
+
+        try {
+            if (value.chars().allMatch(Character::isDigit))
+                return Long.parseLong(value);
+
+            return Instant.parse(value).toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("invalid until value «" + value + "»", ex);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.db;
+
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.lower;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.GenericRawResults;
+
+import nyanguymf.whitelist.commons.collections.BloomFilter;
+
+/**
+ * Bloom filter over ids and names of whitelisted players.
+ * <p>
+ * Filter is built from <tt>players</tt> table with {@link #load}
+ * and every player who becomes whitelisted is added to it by
+ * {@link WhitelistIndex}. When filter says player isn't whitelisted,
+ * login can be rejected without index or database lookups.
+ * <p>
+ * Revoked and removed players stay in filter until it's rebuilt,
+ * they only make it less selective.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class WhitelistFilter {
+    private static final AtomicLong rejected = new AtomicLong();
+    private static volatile BloomFilter filter;
+    /** Filter which is being built, it receives additions too. */
+    private static volatile BloomFilter building;
+
+    private WhitelistFilter() {}
+
+    /**
+     * Builds filter from whitelisted players in <tt>players</tt> table.
+     * <p>
+     * Only ids and names are read. Previous filter is used until
+     * new one is built.
+     *
+     * @param   falsePositiveRate   Desired false positive rate.
+     * @param   expectedPlayers     Amount of players filter is sized for
+     *      or <tt>0</tt> to size it by twice the current amount of
+     *      whitelisted players.
+     * @param   maxBytes            Max size of filter or <tt>0</tt>
+     *      if unlimited.
+     * @return <tt>true</tt> if filter was loaded successfully.
+     */
+    public static boolean load(
+        final double falsePositiveRate, final long expectedPlayers, final long maxBytes
+    ) {
+        Dao<WhitelistedPlayer, UUID> dao = WhitelistedPlayer.getDao();
+        GenericRawResults<String[]> rows = null;
+
+        try {
+            long expected = expectedPlayers;
+
+            if (expected <= 0) {
+                expected = 2 * dao.queryBuilder().where().eq("is_whitelisted", true).countOf();
+            }
+
+            BloomFilter next = BloomFilter.create(expected, falsePositiveRate, maxBytes);
+            building = next;
+
+            rows = dao.queryRaw(
+                dao.queryBuilder().selectColumns("uuid", "name_lower")
+                    .where().eq("is_whitelisted", true)
+                    .prepare().getStatement()
+            );
+            for (String[] row : rows) {
+                next.add(BloomFilter.hash(UUID.fromString(row[0])));
+                next.add(BloomFilter.hash(row[1]));
+            }
+
+            filter = next;
+            return true;
+        } catch (SQLException | IllegalArgumentException | IllegalStateException ex) {
+            System.err.printf("Unable to load whitelist filter: %s\n", ex.getLocalizedMessage());
+            return false;
+        } finally {
+            building = null;
+
+            if (rows != null) {
+                try {
+                    rows.close();
+                } catch (Exception ignore) {}
+            }
+        }
+    }
+
+    /**
+     * Checks if player with given id or name might be whitelisted.
+     * <p>
+     * Name is checked too, because players added by name get
+     * their ids only on first login.
+     *
+     * @return <tt>false</tt> if player is definitely not whitelisted;
+     *      <tt>true</tt> if he might be or filter isn't loaded.
+     */
+    public static boolean mightBeWhitelisted(final UUID uuid, final String playerName) {
+        BloomFilter filter = WhitelistFilter.filter;
+
+        if ((filter == null)
+                || filter.mightContain(BloomFilter.hash(uuid))
+                || filter.mightContain(BloomFilter.hash(lower(playerName))))
+            return true;
+
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /** Adds whitelisted player to filter. */
+    static void add(final UUID uuid, final String playerName) {
+        long idHash = BloomFilter.hash(uuid);
+        long nameHash = BloomFilter.hash(lower(playerName));
+
+        for (BloomFilter target : new BloomFilter[] {filter, building}) {
+            if (target != null) {
+                target.add(idHash);
+                target.add(nameHash);
+            }
+        }
+    }
+
+    /** @return <tt>true</tt> if filter was loaded. */
+    public static boolean isLoaded() {
+        return filter != null;
+    }
+
+    /** @return size of filter in bytes or <tt>0</tt> if it isn't loaded. */
+    public static long getMemoryBytes() {
+        BloomFilter filter = WhitelistFilter.filter;
+        return (filter == null) ? 0 : filter.getMemoryBytes();
+    }
+
+    /** @return amount of bits set for every id and name. */
+    public static int getHashes() {
+        BloomFilter filter = WhitelistFilter.filter;
+        return (filter == null) ? 0 : filter.getHashes();
+    }
+
+    /**
+     * Estimates current false positive rate of filter.
+     * <p>
+     * Scans whole filter, so it shouldn't be called often.
+     */
+    public static double expectedFalsePositiveRate() {
+        BloomFilter filter = WhitelistFilter.filter;
+        return (filter == null) ? 1 : filter.expectedFalsePositiveRate();
+    }
+
+    /** @return amount of players rejected by filter. */
+    public static long getRejected() {
+        return rejected.get();
+    }
+}
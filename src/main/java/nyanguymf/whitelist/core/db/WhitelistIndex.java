@@ -0,0 +1,319 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.db;
+
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.lower;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import com.j256.ormlite.dao.CloseableIterator;
+
+/**
+ * Resident copy of whitelist state used by login checks.
+ * <p>
+ * Index is filled once from <tt>players</tt> table with
+ * {@link #load()} and then kept coherent by every
+ * {@link WhitelistedPlayer} create/save/reload/delete call,
+ * so login decision is a single hash lookup by player id
+ * without database access.
+ * <p>
+ * Index also caches ids of player names: names of indexed
+ * players and names which players logged in with.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class WhitelistIndex {
+    /** Max amount of cached ids of players who aren't indexed. */
+    private static final int MAX_REMEMBERED_IDS = 100_000;
+    private static final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private static final Map<String, UUID> ids = new ConcurrentHashMap<>();
+    private static final AtomicLong version = new AtomicLong();
+    private static volatile boolean isLoaded = false;
+    private static volatile Listener listener;
+
+    public enum Verdict {
+        /** Player is whitelisted and whitelist isn't expired. */
+        ALLOWED,
+        /** Player exists, but isn't whitelisted. */
+        NOT_WHITELISTED,
+        /** Player is whitelisted, but his whitelist is expired. */
+        EXPIRED,
+        /** Player is not in the index at all. */
+        UNKNOWN;
+    }
+
+    private WhitelistIndex() {}
+
+    /**
+     * Loads whole <tt>players</tt> table into index.
+     * <p>
+     * Rows are iterated one by one, so table is never
+     * held in heap as list. If index was already loaded,
+     * entries are replaced in place and players which
+     * aren't in table any more are removed afterwards,
+     * so logins are checked against full index during
+     * reload.
+     *
+     * @return <tt>true</tt> if index was loaded successfully.
+     */
+    public static boolean load() {
+        Set<UUID> stale = new HashSet<>(entries.keySet());
+
+        CloseableIterator<WhitelistedPlayer> iterator
+                = WhitelistedPlayer.getDao().closeableIterator();
+        try {
+            while (iterator.hasNext()) {
+                WhitelistedPlayer player = iterator.next();
+                WhitelistIndex.put(player);
+                stale.remove(player.getUniqueId());
+            }
+        } catch (IllegalStateException ex) {
+            System.err.printf("Unable to load whitelist index: %s\n", ex.getLocalizedMessage());
+            return isLoaded = false;
+        } finally {
+            iterator.closeQuietly();
+        }
+
+        stale.forEach(WhitelistIndex::remove);
+
+        return isLoaded = true;
+    }
+
+    /**
+     * Gets verdict for given player.
+     * <p>
+     * Doesn't allocate anything and never touches database.
+     *
+     * @param   uuid    Id of player to check.
+     * @param   now     Current time in epoch millis.
+     * @return verdict for given player.
+     */
+    public static Verdict verdict(final UUID uuid, final long now) {
+        Entry entry = entries.get(uuid);
+
+        if (entry == null)
+            return Verdict.UNKNOWN;
+
+        if (!entry.isWhitelisted)
+            return Verdict.NOT_WHITELISTED;
+
+        if ((entry.until != 0) && (entry.until <= now))
+            return Verdict.EXPIRED;
+
+        return Verdict.ALLOWED;
+    }
+
+    /**
+     * Gets cached id of player with given name ignoring case.
+     *
+     * @return id or <tt>null</tt> if name isn't known.
+     */
+    public static UUID id(final String playerName) {
+        return ids.get(lower(playerName));
+    }
+
+    /**
+     * Caches id which server gave to player with given name.
+     * <p>
+     * Name of indexed player keeps its id, so record added by
+     * name can still be found by it. Ids of players who aren't
+     * indexed are cached only while there are less than
+     * {@value #MAX_REMEMBERED_IDS} of them.
+     */
+    public static void remember(final String playerName, final UUID uuid) {
+        String key = lower(playerName);
+        UUID current = ids.get(key);
+
+        if ((current != null) && (current.equals(uuid) || entries.containsKey(current)))
+            return;
+
+        if ((current == null) && (ids.size() - entries.size() >= MAX_REMEMBERED_IDS))
+            return;
+
+        ids.put(key, uuid);
+    }
+
+    /** Calls given action for every indexed player. */
+    public static void forEach(final BiConsumer<UUID, Entry> action) {
+        entries.forEach(action);
+    }
+
+    /**
+     * Sets listener which will be notified about
+     * every change of index entries.
+     */
+    public static void setListener(final Listener listener) {
+        WhitelistIndex.listener = listener;
+    }
+
+    /** Gets index entry for given player id or <tt>null</tt>. */
+    public static Entry entry(final UUID uuid) {
+        return entries.get(uuid);
+    }
+
+    /** Updates index entry for given player. */
+    static void put(final WhitelistedPlayer player) {
+        if ((player == null) || (player.getUniqueId() == null) || (player.getName() == null))
+            return;
+
+        UUID uuid = player.getUniqueId();
+        Entry entry = new Entry(player.getName(), player.isWhitelisted(), player.getUntil());
+        Entry previous = entries.put(uuid, entry);
+
+        if ((previous != null) && !previous.name.equals(entry.name)) {
+            ids.remove(lower(previous.name), uuid);
+        }
+        ids.put(lower(entry.name), uuid);
+
+        if (entry.isWhitelisted) {
+            WhitelistFilter.add(uuid, entry.name);
+        }
+
+        notifyListener(uuid, entry);
+    }
+
+    /**
+     * Marks all entries expired before given time as
+     * not whitelisted.
+     *
+     * @param   now     Current time in epoch millis.
+     */
+    static void revokeExpired(final long now) {
+        for (Map.Entry<UUID, Entry> indexed : entries.entrySet()) {
+            Entry entry = indexed.getValue();
+
+            if (entry.isWhitelisted && (entry.until != 0) && (entry.until < now)) {
+                Entry revoked = new Entry(entry.name, false, 0);
+
+                if (entries.replace(indexed.getKey(), entry, revoked)) {
+                    notifyListener(indexed.getKey(), revoked);
+                }
+            }
+        }
+    }
+
+    /** Marks given player as not whitelisted if he expired before or at given time. */
+    static void revokeExpired(final UUID uuid, final long now) {
+        Entry entry = entries.get(uuid);
+
+        if ((entry != null) && entry.isWhitelisted && (entry.until != 0) && (entry.until <= now)) {
+            Entry revoked = new Entry(entry.name, false, 0);
+
+            if (entries.replace(uuid, entry, revoked)) {
+                notifyListener(uuid, revoked);
+            }
+        }
+    }
+
+    /** Removes index entry for given player id. */
+    static void remove(final UUID uuid) {
+        Entry entry = (uuid == null) ? null : entries.remove(uuid);
+
+        if (entry != null) {
+            ids.remove(lower(entry.name), uuid);
+            notifyListener(uuid, null);
+        }
+    }
+
+    private static void notifyListener(final UUID uuid, final Entry entry) {
+        version.incrementAndGet();
+        Listener listener = WhitelistIndex.listener;
+
+        if (listener != null) {
+            listener.onUpdate(uuid, entry);
+        }
+    }
+
+    /**
+     * Checks if index was successfully loaded.
+     * <p>
+     * If it wasn't, {@link Verdict#UNKNOWN} can't be trusted
+     * and database should be used instead.
+     */
+    public static boolean isLoaded() {
+        return isLoaded;
+    }
+
+    /**
+     * Gets version of index, which is increased
+     * on every change of index entries.
+     * <p>
+     * It lets callers rebuild data derived from
+     * index only when index was changed.
+     */
+    public static long version() {
+        return version.get();
+    }
+
+    /** @return number of indexed players. */
+    public static int size() {
+        return entries.size();
+    }
+
+    /** Listener of index changes. */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called after index entry was changed.
+         *
+         * @param   uuid    Id of changed player.
+         * @param   entry   New entry or <tt>null</tt> if
+         *      player was removed from index.
+         */
+        void onUpdate(UUID uuid, Entry entry);
+    }
+
+    /** Immutable whitelist state of single player. */
+    public static final class Entry {
+        private final String name;
+        private final boolean isWhitelisted;
+        private final long until;
+
+        private Entry(final String name, final boolean isWhitelisted, final long until) {
+            this.name = name;
+            this.isWhitelisted = isWhitelisted;
+            this.until = until;
+        }
+
+        /** @return the name */
+        public String getName() {
+            return name;
+        }
+
+        /** @return the isWhitelisted */
+        public boolean isWhitelisted() {
+            return isWhitelisted;
+        }
+
+        /** @return expiry time in epoch millis or <tt>0</tt> if never. */
+        public long getUntil() {
+            return until;
+        }
+    }
+}
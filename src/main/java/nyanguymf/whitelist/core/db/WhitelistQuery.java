@@ -0,0 +1,355 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.db;
+
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.lower;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.Where;
+
+import nyanguymf.whitelist.commons.db.DatabaseManager;
+
+/**
+ * Paginated query of whitelisted players.
+ * <p>
+ * Pages are fetched by keyset: every page ends with {@link Cursor}
+ * and next page starts right after it, so fetching next page
+ * costs the same for any page number. If there's no cursor for
+ * requested page, its start is found by query of key columns only.
+ * <p>
+ * If database can't be queried, but {@link WhitelistIndex} is
+ * loaded, pages are taken from index: every page is single scan
+ * of index which keeps only page size rows in memory.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class WhitelistQuery {
+    /** Order of players in pages. */
+    public enum Order {
+        /** By name ignoring case. */
+        NAME,
+        /** By expiry time, soonest first. */
+        UNTIL;
+    }
+
+    private final Order order;
+    private final boolean isPermanentOnly;
+    /** Min expiry time exclusive, used if {@link #untilTo} isn't 0. */
+    private final long untilFrom;
+    /** Max expiry time inclusive or 0 if expiry time isn't filtered. */
+    private final long untilTo;
+    /** Lower case name prefix or <tt>null</tt>. */
+    private final String namePrefix;
+    private final int pageSize;
+
+    private WhitelistQuery(
+        final Order order, final boolean isPermanentOnly, final long untilFrom,
+        final long untilTo, final String namePrefix, final int pageSize
+    ) {
+        this.order = order;
+        this.isPermanentOnly = isPermanentOnly;
+        this.untilFrom = untilFrom;
+        this.untilTo = untilTo;
+        this.namePrefix = namePrefix;
+        this.pageSize = pageSize;
+    }
+
+    /** Creates query of all whitelisted players ordered by name. */
+    public static WhitelistQuery all(final int pageSize) {
+        return new WhitelistQuery(Order.NAME, false, 0, 0, null, pageSize);
+    }
+
+    /** Creates query of players whose whitelist never expires ordered by name. */
+    public static WhitelistQuery permanent(final int pageSize) {
+        return new WhitelistQuery(Order.NAME, true, 0, 0, null, pageSize);
+    }
+
+    /**
+     * Creates query of players whose whitelist expires
+     * after given time, but not later than given time,
+     * ordered by expiry time.
+     *
+     * @param   from    Min expiry time in epoch millis, exclusive.
+     * @param   to      Max expiry time in epoch millis, inclusive.
+     */
+    public static WhitelistQuery expiring(final long from, final long to, final int pageSize) {
+        return new WhitelistQuery(Order.UNTIL, false, from, Math.max(from + 1, to), null, pageSize);
+    }
+
+    /** Creates query of whitelisted players whose name starts with given prefix. */
+    public static WhitelistQuery search(final String namePrefix, final int pageSize) {
+        return new WhitelistQuery(Order.NAME, false, 0, 0, lower(namePrefix), pageSize);
+    }
+
+    /**
+     * Fetches page by its number.
+     *
+     * @param   number  Number of page starting from 1.
+     * @param   after   Cursor which ends previous page or
+     *      <tt>null</tt> if it isn't known.
+     * @throws SQLException if database is unavailable.
+     */
+    public Page page(final int number, final Cursor after) throws SQLException {
+        Cursor start = after;
+
+        if ((start == null) && (number > 1)) {
+            start = seek((long) (number - 1) * pageSize);
+
+            if (start == null)
+                return new Page(Collections.emptyList(), null);
+        }
+
+        return isIndexUsed() ? pageFromIndex(start) : pageFromDatabase(start);
+    }
+
+    /**
+     * Checks if pages should be taken from index.
+     * <p>
+     * Keyset query over indexed columns reads only one page of rows,
+     * while index has to be scanned whole for every page, so index is
+     * used only if database can't be queried right now.
+     */
+    private static boolean isIndexUsed() {
+        DatabaseManager database = WhitelistedPlayer.getDatabase();
+
+        return WhitelistIndex.isLoaded()
+                && ((database == null) || !database.isConnected() || database.isCircuitOpen());
+    }
+
+    /**
+     * Finds cursor of row at given position.
+     *
+     * @param   rows    Amount of rows before cursor.
+     * @return cursor or <tt>null</tt> if there are less rows.
+     */
+    private Cursor seek(final long rows) throws SQLException {
+        if (isIndexUsed()) {
+            List<WhitelistedPlayer> first = smallestFromIndex(null, rows);
+            return (first.size() < rows) ? null : Cursor.of(first.get(first.size() - 1));
+        }
+
+        QueryBuilder<WhitelistedPlayer, UUID> query = query(null)
+            .selectColumns("name_lower", "until")
+            .offset(rows - 1).limit(1L);
+        WhitelistedPlayer last = WhitelistedPlayer.getDatabase().execute(query::queryForFirst);
+
+        return (last == null) ? null : Cursor.of(last);
+    }
+
+    private Page pageFromIndex(final Cursor after) {
+        List<WhitelistedPlayer> players = smallestFromIndex(after, pageSize + 1);
+        return page(players);
+    }
+
+    private Page pageFromDatabase(final Cursor after) throws SQLException {
+        QueryBuilder<WhitelistedPlayer, UUID> query = query(after).limit(pageSize + 1L);
+        return page(WhitelistedPlayer.getDatabase().execute(query::query));
+    }
+
+    /** Makes page of one extra row more than page size. */
+    private Page page(final List<WhitelistedPlayer> players) {
+        if (players.size() <= pageSize)
+            return new Page(players, null);
+
+        List<WhitelistedPlayer> page = players.subList(0, pageSize);
+        return new Page(page, Cursor.of(page.get(pageSize - 1)));
+    }
+
+    /**
+     * Scans index for given amount of first matching players
+     * after given cursor, using heap of that size.
+     */
+    private List<WhitelistedPlayer> smallestFromIndex(final Cursor after, final long limit) {
+        Comparator<WhitelistedPlayer> comparator = (first, second) -> compare(
+            first.getNameLower(), first.getUntil(), first.getUniqueId(), second
+        );
+        int capacity = (int) Math.min(limit, Integer.MAX_VALUE - 8);
+        PriorityQueue<WhitelistedPlayer> heap = new PriorityQueue<>(
+            Math.min(capacity, 1_024) + 1, comparator.reversed()
+        );
+        WhitelistedPlayer cursor = (after == null) ? null : after.toPlayer();
+
+        WhitelistIndex.forEach((uuid, entry) -> {
+            if (!matches(entry)) {
+                return;
+            }
+
+            // most entries are rejected here, so player is created only for heap
+            String nameLower = lower(entry.getName());
+            if ((cursor != null) && (compare(nameLower, entry.getUntil(), uuid, cursor) <= 0)) {
+                return;
+            }
+            if ((heap.size() == capacity)
+                    && (compare(nameLower, entry.getUntil(), uuid, heap.peek()) >= 0)) {
+                return;
+            }
+
+            WhitelistedPlayer player = new WhitelistedPlayer(uuid, entry.getName(), entry.getUntil());
+            player.setWhitelisted(true);
+
+            if (heap.size() == capacity) {
+                heap.poll();
+            }
+            heap.add(player);
+        });
+
+        List<WhitelistedPlayer> players = new ArrayList<>(heap);
+        players.sort(comparator);
+
+        return players;
+    }
+
+    /** Compares row with given key to given player in page order. */
+    private int compare(
+        final String nameLower, final long until, final UUID uuid, final WhitelistedPlayer other
+    ) {
+        int result = (order == Order.NAME)
+                ? nameLower.compareTo(other.getNameLower())
+                : Long.compare(until, other.getUntil());
+
+        // database compares ids as strings
+        return (result != 0) ? result : uuid.toString().compareTo(other.getUniqueId().toString());
+    }
+
+    private boolean matches(final WhitelistIndex.Entry entry) {
+        if (!entry.isWhitelisted())
+            return false;
+
+        if (isPermanentOnly && (entry.getUntil() != 0))
+            return false;
+
+        if ((untilTo != 0) && ((entry.getUntil() <= untilFrom) || (entry.getUntil() > untilTo)))
+            return false;
+
+        return (namePrefix == null)
+                || entry.getName().regionMatches(true, 0, namePrefix, 0, namePrefix.length());
+    }
+
+    /** Builds query of matching players after given cursor in page order. */
+    private QueryBuilder<WhitelistedPlayer, UUID> query(final Cursor after) throws SQLException {
+        QueryBuilder<WhitelistedPlayer, UUID> query = WhitelistedPlayer.getDao().queryBuilder();
+        Where<WhitelistedPlayer, UUID> where = query.where();
+        int clauses = 1;
+
+        where.eq("is_whitelisted", true);
+
+        if (isPermanentOnly) {
+            where.eq("until", 0L);
+            clauses++;
+        }
+
+        if (untilTo != 0) {
+            where.gt("until", untilFrom);
+            where.le("until", untilTo);
+            clauses += 2;
+        }
+
+        if (namePrefix != null) {
+            where.ge("name_lower", new SelectArg(namePrefix));
+            where.lt("name_lower", new SelectArg(namePrefix + Character.MAX_VALUE));
+            clauses += 2;
+        }
+
+        if (after != null) {
+            String key = (order == Order.NAME) ? "name_lower" : "until";
+            Object value = (order == Order.NAME) ? new SelectArg(after.nameLower) : after.until;
+
+            // key > value OR (key = value AND uuid > after.uuid)
+            where.gt(key, value);
+            where.eq(key, value);
+            where.gt("uuid", new SelectArg(after.uuid));
+            where.and(2);
+            where.or(2);
+            clauses++;
+        }
+
+        where.and(clauses);
+
+        if (order == Order.NAME) {
+            query.orderBy("name_lower", true);
+        } else {
+            query.orderBy("until", true);
+        }
+        query.orderBy("uuid", true);
+
+        return query;
+    }
+
+    /** Position right after last row of page. */
+    public static final class Cursor {
+        private final String nameLower;
+        private final long until;
+        private final UUID uuid;
+
+        private Cursor(final String nameLower, final long until, final UUID uuid) {
+            this.nameLower = nameLower;
+            this.until = until;
+            this.uuid = uuid;
+        }
+
+        private static Cursor of(final WhitelistedPlayer player) {
+            return new Cursor(player.getNameLower(), player.getUntil(), player.getUniqueId());
+        }
+
+        private WhitelistedPlayer toPlayer() {
+            WhitelistedPlayer player = new WhitelistedPlayer(uuid, nameLower, until);
+            player.setWhitelisted(true);
+            return player;
+        }
+    }
+
+    /** Single page of query. */
+    public static final class Page {
+        private final List<WhitelistedPlayer> players;
+        private final Cursor next;
+
+        private Page(final List<WhitelistedPlayer> players, final Cursor next) {
+            this.players = players;
+            this.next = next;
+        }
+
+        /** @return players of page in query order. */
+        public List<WhitelistedPlayer> getPlayers() {
+            return players;
+        }
+
+        /** @return cursor of next page or <tt>null</tt> if it's last page. */
+        public Cursor getNext() {
+            return next;
+        }
+
+        /** @return <tt>true</tt> if there are more pages. */
+        public boolean hasNext() {
+            return next != null;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.db;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.j256.ormlite.dao.CloseableIterator;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.misc.TransactionManager;
+
+/**
+ * Streams whitelist between database and files.
+ * <p>
+ * Files are never held in heap: import reads them line by
+ * line and upserts players in batches, export iterates table
+ * row by row. Only one transfer runs at a time.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class WhitelistTransfer {
+    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final int batchSize;
+
+    /** @param batchSize Amount of players upserted at once. */
+    public WhitelistTransfer(final int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Marks transfer as running.
+     *
+     * @return <tt>false</tt> if other transfer is already running.
+     */
+    public boolean tryStart() {
+        return isRunning.compareAndSet(false, true);
+    }
+
+    /** Marks transfer as finished. */
+    public void finish() {
+        isRunning.set(false);
+    }
+
+    /**
+     * Imports players from given file.
+     * <p>
+     * All batches are upserted in single transaction, so
+     * either whole file is imported or nothing is. Existing
+     * players are overwritten, if player occurs in file
+     * several times, the last line wins.
+     *
+     * @param   file        File to import.
+     * @param   format      Format of file.
+     * @param   progress    Called after each batch.
+     * @return amount of imported players.
+     * @throws IOException if unable to read file or it's malformed.
+     * @throws SQLException if database failed.
+     */
+    public long importFrom(
+        final Path file, final WhitelistFileFormat format, final Progress progress
+    ) throws IOException, SQLException {
+        Dao<WhitelistedPlayer, UUID> dao = WhitelistedPlayer.getDao();
+        long imported;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            imported = TransactionManager.callInTransaction(dao.getConnectionSource(), () -> {
+                Map<UUID, WhitelistedPlayer> batch = new LinkedHashMap<>();
+                long rows = 0;
+                long lineNumber = 0;
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    WhitelistedPlayer player;
+
+                    try {
+                        player = format.parse(line);
+                    } catch (IllegalArgumentException ex) {
+                        throw new IOException(
+                            String.format("Line %d: %s", lineNumber, ex.getMessage()), ex
+                        );
+                    }
+
+                    if (player == null) {
+                        continue;
+                    }
+
+                    batch.put(player.getUniqueId(), player);
+
+                    if (batch.size() >= batchSize) {
+                        rows += upsert(dao, batch);
+                        progress.onProgress(rows);
+                    }
+                }
+
+                return rows + upsert(dao, batch);
+            });
+        } catch (SQLException ex) {
+            // transaction wraps exceptions of callable
+            if (ex.getCause() instanceof IOException)
+                throw (IOException) ex.getCause();
+
+            throw ex;
+        }
+
+        // rows were written bypassing WhitelistedPlayer
+        WhitelistIndex.load();
+
+        return imported;
+    }
+
+    /**
+     * Upserts given players and clears batch.
+     * <p>
+     * Existing players are found with single query, new ones
+     * are inserted at once and existing ones are updated in
+     * single batch task.
+     */
+    private static int upsert(
+        final Dao<WhitelistedPlayer, UUID> dao, final Map<UUID, WhitelistedPlayer> batch
+    ) throws SQLException {
+        if (batch.isEmpty())
+            return 0;
+
+        Set<UUID> existing = new HashSet<>();
+        for (WhitelistedPlayer player : dao.queryBuilder()
+                .selectColumns("uuid")
+                .where().in("uuid", batch.keySet())
+                .query()) {
+            existing.add(player.getUniqueId());
+        }
+
+        List<WhitelistedPlayer> created = new ArrayList<>(batch.size() - existing.size());
+        List<WhitelistedPlayer> updated = new ArrayList<>(existing.size());
+        for (WhitelistedPlayer player : batch.values()) {
+            if (existing.contains(player.getUniqueId())) {
+                updated.add(player);
+            } else {
+                created.add(player);
+            }
+        }
+
+        if (!created.isEmpty()) {
+            dao.create(created);
+        }
+        if (!updated.isEmpty()) {
+            updateAll(dao, updated);
+        }
+
+        int upserted = batch.size();
+        batch.clear();
+
+        return upserted;
+    }
+
+    /** Updates given players as ORMLite batch task. */
+    private static void updateAll(
+        final Dao<WhitelistedPlayer, UUID> dao, final List<WhitelistedPlayer> players
+    ) throws SQLException {
+        try {
+            dao.callBatchTasks(() -> {
+                for (WhitelistedPlayer player : players) {
+                    dao.update(player);
+                }
+                return null;
+            });
+        } catch (SQLException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new SQLException(ex);
+        }
+    }
+
+    /**
+     * Exports all players into given file.
+     * <p>
+     * File is written next to destination first and then
+     * moved over it, so destination is never left half-written.
+     *
+     * @param   file        Destination file.
+     * @param   format      Format of file.
+     * @param   progress    Called after each {@code batchSize} players.
+     * @return amount of exported players.
+     * @throws IOException if unable to write file.
+     * @throws SQLException if database failed.
+     */
+    public long exportTo(
+        final Path file, final WhitelistFileFormat format, final Progress progress
+    ) throws IOException, SQLException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows = 0;
+
+        CloseableIterator<WhitelistedPlayer> iterator = WhitelistedPlayer.getDao().iterator();
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, UTF_8)) {
+            if (format.header() != null) {
+                writer.write(format.header());
+                writer.newLine();
+            }
+
+            while (iterator.hasNext()) {
+                writer.write(format.format(iterator.next()));
+                writer.newLine();
+
+                if (++rows % batchSize == 0) {
+                    progress.onProgress(rows);
+                }
+            }
+        } catch (IllegalStateException ex) {
+            // iterator wraps SQLException
+            Files.deleteIfExists(temporary);
+            throw new SQLException(ex.getMessage(), ex);
+        } catch (IOException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex;
+        } finally {
+            iterator.closeQuietly();
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+
+        return rows;
+    }
+
+    /** Receives amount of transferred players while transfer runs. */
+    @FunctionalInterface
+    public interface Progress {
+        void onProgress(long rows);
+    }
+}
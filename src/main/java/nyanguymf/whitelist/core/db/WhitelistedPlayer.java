@@ -22,71 +22,382 @@
  */
 package nyanguymf.whitelist.core.db;
 
-import static com.j256.ormlite.table.TableUtils.createTable;
+import static com.j256.ormlite.misc.TransactionManager.callInTransaction;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
 
 import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.field.DataType;
 import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.UpdateBuilder;
 import com.j256.ormlite.table.DatabaseTable;
 
-import nyanguymf.whitelist.core.TemporalWhitelistPlugin;
+import nyanguymf.whitelist.commons.db.DatabaseManager;
 
 /** @author NyanGuyMF - Vasiliy Bely */
 @DatabaseTable(tableName="players")
 public final class WhitelistedPlayer {
-    private static Dao<WhitelistedPlayer, String> dao;
+    private static Dao<WhitelistedPlayer, UUID> dao;
+    private static DatabaseManager database;
 
+    /**
+     * Unique id of player.
+     * <p>
+     * Players which were added by name before their first
+     * login get offline id derived from name (see
+     * {@link #offlineId(String)}). It's replaced with
+     * id given by server when player logs in.
+     */
     @DatabaseField(id=true)
+    private UUID uuid;
+
+    @DatabaseField(canBeNull=false)
     private String name;
 
+    /** Lowercase {@link #name}, so lookups by name ignore case. */
+    @DatabaseField(
+        columnName="name_lower", canBeNull=false,
+        index=true, indexName="players_name_lower_idx"
+    )
+    private String nameLower;
+
     @DatabaseField(columnName="is_whitelisted", canBeNull=false)
     private boolean isWhitelisted = false;
 
-    @DatabaseField(dataType=DataType.DATE_STRING)
-    private Date until;
+    /**
+     * Expiry time in epoch millis or <tt>0</tt> if whitelist never expires.
+     * <p>
+     * Stored as plain <tt>BIGINT</tt>, so it can be compared and indexed
+     * without any date conversions.
+     */
+    @DatabaseField(canBeNull=false, defaultValue="0", index=true, indexName="players_until_idx")
+    private long until;
 
     public WhitelistedPlayer() {}
 
-    public WhitelistedPlayer(final String name) {
-        this(name, null);
+    public WhitelistedPlayer(final UUID uuid, final String name) {
+        this(uuid, name, 0);
     }
 
-    public WhitelistedPlayer(final String name, final Date until) {
-        this.name = name;
+    /**
+     * @param   uuid    Player unique id.
+     * @param   name    Player name.
+     * @param   until   Expiry time in epoch millis or <tt>0</tt>
+     *      if whitelist never expires.
+     */
+    public WhitelistedPlayer(final UUID uuid, final String name, final long until) {
+        this.uuid = uuid;
         this.until = until;
+        setName(name);
     }
 
-    protected static void initDao(final Dao<WhitelistedPlayer, String> dao) {
+    /**
+     * Migrates <tt>players</tt> table and starts using given DAO.
+     *
+     * @throws SQLException if table can't be migrated, DAO
+     *      isn't used then.
+     */
+    protected static void initDao(
+        final Dao<WhitelistedPlayer, UUID> dao, final DatabaseManager database
+    ) throws SQLException {
         if (WhitelistedPlayer.dao == null) {
-            try {
-                if (!dao.isTableExists()) {
-                    createTable(dao);
-                }
-            } catch (SQLException ex) {
-                System.err.printf("Unable to create table: %s\n",ex.getLocalizedMessage());
-            }
+            if (!new SchemaMigrator(dao, Bukkit.getConsoleSender()::sendMessage).migrate())
+                throw new SQLException("players table isn't migrated to latest version");
+
             WhitelistedPlayer.dao = dao;
+            WhitelistedPlayer.database = database;
         }
     }
 
+    /**
+     * Gets id which offline mode server gives to player
+     * with given name.
+     */
+    public static UUID offlineId(final String playerName) {
+        return UUID.nameUUIDFromBytes(("OfflinePlayer:" + playerName).getBytes(UTF_8));
+    }
+
+    /**
+     * Gets id for player with given name.
+     * <p>
+     * It's id from name cache of {@link WhitelistIndex}
+     * or offline id if player never logged in.
+     */
+    public static UUID idOf(final String playerName) {
+        UUID uuid = WhitelistIndex.id(playerName);
+
+        return (uuid != null) ? uuid : offlineId(playerName);
+    }
+
+    /** @return name in form used by <tt>name_lower</tt> column. */
+    static String lower(final String playerName) {
+        return playerName.toLowerCase(Locale.ROOT);
+    }
+
     public static List<WhitelistedPlayer> allPlayers() {
         try {
-            return WhitelistedPlayer.dao.queryForAll();
+            return WhitelistedPlayer.database.execute(WhitelistedPlayer.dao::queryForAll);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Revokes whitelist of all players whose whitelist
+     * expired before given time.
+     * <p>
+     * It's a single set-based <tt>UPDATE</tt> query which
+     * uses index on <tt>until</tt> column.
+     *
+     * @param   now     Current time.
+     * @return amount of revoked players or <tt>-1</tt> on error.
+     */
+    public static int revokeExpired(final Date now) {
+        try {
+            int revoked = WhitelistedPlayer.database.execute(() -> {
+                UpdateBuilder<WhitelistedPlayer, UUID> update = WhitelistedPlayer.dao.updateBuilder();
+                update.updateColumnValue("is_whitelisted", false);
+                update.updateColumnValue("until", 0L);
+                update.where()
+                    .eq("is_whitelisted", true)
+                    .and().gt("until", 0L)
+                    .and().lt("until", now.getTime());
+
+                return update.update();
+            });
+            WhitelistIndex.revokeExpired(now.getTime());
+
+            return revoked;
         } catch (SQLException ex) {
-            if (TemporalWhitelistPlugin.reload())
-                return allPlayers();
+            ex.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Revokes whitelist of given players if it expired
+     * before or at given time.
+     *
+     * @param   uuids   Ids of players to check.
+     * @param   now     Current time.
+     * @return amount of revoked players or <tt>-1</tt> on error.
+     */
+    public static int revokeExpired(final Collection<UUID> uuids, final Date now) {
+        try {
+            int revoked = WhitelistedPlayer.database.execute(() -> {
+                UpdateBuilder<WhitelistedPlayer, UUID> update = WhitelistedPlayer.dao.updateBuilder();
+                update.updateColumnValue("is_whitelisted", false);
+                update.updateColumnValue("until", 0L);
+                update.where()
+                    .in("uuid", uuids)
+                    .and().eq("is_whitelisted", true)
+                    .and().gt("until", 0L)
+                    .and().le("until", now.getTime());
+
+                return update.update();
+            });
+            for (UUID uuid : uuids) {
+                WhitelistIndex.revokeExpired(uuid, now.getTime());
+            }
 
+            return revoked;
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Whitelists all given players until given time.
+     * <p>
+     * Existing players are found by name with single <tt>IN</tt>
+     * query and updated with single <tt>UPDATE</tt>. Missing ones
+     * get id from {@link #idOf(String)}: if there is player with
+     * such id, he was renamed and his record is updated, others
+     * are inserted as one batch. Everything runs in one transaction.
+     *
+     * @param   playerNames Names of players to whitelist.
+     * @param   until       Expiry time in epoch millis or <tt>0</tt>
+     *      for forever.
+     * @return names of players which already existed or
+     *      <tt>null</tt> on error.
+     */
+    public static Set<String> whitelistAll(final Collection<String> playerNames, final long until) {
+        if (playerNames.isEmpty())
+            return Collections.emptySet();
+
+        Map<String, String> names = byLowerName(playerNames);
+        List<WhitelistedPlayer> changed = new ArrayList<>(names.size());
+
+        try {
+            Set<String> existing = WhitelistedPlayer.database.execute(() -> callInTransaction(
+                WhitelistedPlayer.dao.getConnectionSource(), () -> {
+                    changed.clear();
+                    Set<String> found = new LinkedHashSet<>();
+
+                    List<WhitelistedPlayer> byName = findByLowerNames(names.keySet());
+                    if (!byName.isEmpty()) {
+                        UpdateBuilder<WhitelistedPlayer, UUID> update = WhitelistedPlayer.dao.updateBuilder();
+                        update.updateColumnValue("is_whitelisted", true);
+                        update.updateColumnValue("until", until);
+                        update.where().in("name_lower", selectArgs(names.keySet()));
+                        update.update();
+
+                        for (WhitelistedPlayer player : byName) {
+                            found.add(names.get(player.nameLower));
+                            changed.add(player);
+                        }
+                    }
+
+                    Map<UUID, String> missing = new LinkedHashMap<>();
+                    for (String playerName : names.values()) {
+                        if (!found.contains(playerName)) {
+                            missing.put(idOf(playerName), playerName);
+                        }
+                    }
+                    if (missing.isEmpty())
+                        return found;
+
+                    // players which were renamed since they were added
+                    for (WhitelistedPlayer player : WhitelistedPlayer.dao.queryBuilder()
+                            .where().in("uuid", missing.keySet())
+                            .query()) {
+                        String playerName = missing.remove(player.uuid);
+                        player.setName(playerName);
+                        player.setWhitelisted(true);
+                        player.setUntil(until);
+                        WhitelistedPlayer.dao.update(player);
+                        found.add(playerName);
+                        changed.add(player);
+                    }
+
+                    List<WhitelistedPlayer> created = new ArrayList<>(missing.size());
+                    missing.forEach((uuid, playerName) -> {
+                        WhitelistedPlayer player = new WhitelistedPlayer(uuid, playerName, until);
+                        player.setWhitelisted(true);
+                        created.add(player);
+                    });
+                    if (!created.isEmpty()) {
+                        WhitelistedPlayer.dao.create(created);
+                        changed.addAll(created);
+                    }
+
+                    return found;
+                }
+            ));
+
+            for (WhitelistedPlayer player : changed) {
+                player.setWhitelisted(true);
+                player.setUntil(until);
+                WhitelistIndex.put(player);
+            }
+
+            return existing;
+        } catch (SQLException ex) {
             ex.printStackTrace();
             return null;
         }
     }
 
     /**
-     * Gets player by name.
+     * Removes all given players from whitelist.
+     * <p>
+     * Players are found by name with single <tt>IN</tt> query
+     * and updated with single <tt>UPDATE</tt> in one transaction.
+     *
+     * @param   playerNames Names of players to remove.
+     * @param   now         Current time, stored as their expiry time.
+     * @return names of players which were removed or
+     *      <tt>null</tt> on error.
+     */
+    public static Set<String> revokeAll(final Collection<String> playerNames, final Date now) {
+        if (playerNames.isEmpty())
+            return Collections.emptySet();
+
+        Map<String, String> names = byLowerName(playerNames);
+
+        try {
+            List<WhitelistedPlayer> revoked = WhitelistedPlayer.database.execute(() -> callInTransaction(
+                WhitelistedPlayer.dao.getConnectionSource(), () -> {
+                    List<WhitelistedPlayer> found = findByLowerNames(names.keySet());
+
+                    if (!found.isEmpty()) {
+                        UpdateBuilder<WhitelistedPlayer, UUID> update = WhitelistedPlayer.dao.updateBuilder();
+                        update.updateColumnValue("is_whitelisted", false);
+                        update.updateColumnValue("until", now.getTime());
+                        update.where().in("name_lower", selectArgs(names.keySet()));
+                        update.update();
+                    }
+
+                    return found;
+                }
+            ));
+
+            Set<String> removed = new LinkedHashSet<>();
+            for (WhitelistedPlayer player : revoked) {
+                player.setWhitelisted(false);
+                player.setUntil(now.getTime());
+                WhitelistIndex.put(player);
+                removed.add(names.get(player.nameLower));
+            }
+
+            return removed;
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /** @return given names by their lowercase form. */
+    private static Map<String, String> byLowerName(final Collection<String> playerNames) {
+        Map<String, String> names = new HashMap<>();
+
+        for (String playerName : playerNames) {
+            names.putIfAbsent(lower(playerName), playerName);
+        }
+
+        return names;
+    }
+
+    /**
+     * Wraps given names into arguments, ORMLite inlines plain
+     * strings into SQL without escaping them.
+     */
+    private static List<SelectArg> selectArgs(final Collection<String> names) {
+        List<SelectArg> args = new ArrayList<>(names.size());
+
+        for (String name : names) {
+            args.add(new SelectArg(name));
+        }
+
+        return args;
+    }
+
+    private static List<WhitelistedPlayer> findByLowerNames(final Collection<String> lowerNames)
+            throws SQLException {
+        return WhitelistedPlayer.dao.queryBuilder()
+                .where().in("name_lower", selectArgs(lowerNames))
+                .query();
+    }
+
+    /**
+     * Gets player by name ignoring case.
      * <p>
      * If player not found it will return <tt>null</tt>.
      *
@@ -96,92 +407,216 @@ public final class WhitelistedPlayer {
      */
     public static WhitelistedPlayer playerByName(final String playerName) {
         try {
-            return WhitelistedPlayer.dao.queryForId(playerName);
+            return findByName(playerName);
         } catch (SQLException ex) {
-            if (TemporalWhitelistPlugin.reload())
-                return playerByName(playerName);
-
             ex.printStackTrace();
             return null;
         }
     }
 
-    public static boolean isPlayerExists(final String player) {
+    /**
+     * Gets player by name ignoring case.
+     * <p>
+     * Unlike {@link #playerByName(String)} it doesn't hide
+     * database errors, so caller can tell absent player
+     * from unavailable database.
+     *
+     * @param   playerName  Player name for query.
+     * @return {@link WhitelistedPlayer} instance for given name or
+     * <tt>null</tt> value if not found.
+     * @throws SQLException if database is unavailable.
+     */
+    public static WhitelistedPlayer findByName(final String playerName) throws SQLException {
+        WhitelistedPlayer player = WhitelistedPlayer.database.execute(
+            () -> WhitelistedPlayer.dao.queryBuilder()
+                .where().eq("name_lower", new SelectArg(lower(playerName)))
+                .queryForFirst()
+        );
+        WhitelistIndex.put(player);
+
+        return player;
+    }
+
+    /**
+     * Gets player by unique id.
+     * <p>
+     * If player not found or database is unavailable
+     * it will return <tt>null</tt>.
+     *
+     * @param   uuid    Player unique id.
+     * @return {@link WhitelistedPlayer} instance for given id or
+     * <tt>null</tt> value if not found.
+     */
+    public static WhitelistedPlayer playerById(final UUID uuid) {
         try {
-            return WhitelistedPlayer.dao.idExists(player);
-        } catch (SQLException e) {
-            if (TemporalWhitelistPlugin.reload())
-                return isPlayerExists(player);
+            return findById(uuid);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
 
-            e.printStackTrace();
+    /**
+     * Gets player by unique id.
+     *
+     * @param   uuid    Player unique id.
+     * @return {@link WhitelistedPlayer} instance for given id or
+     * <tt>null</tt> value if not found.
+     * @throws SQLException if database is unavailable.
+     */
+    public static WhitelistedPlayer findById(final UUID uuid) throws SQLException {
+        WhitelistedPlayer player = WhitelistedPlayer.database.execute(
+            () -> WhitelistedPlayer.dao.queryForId(uuid)
+        );
+        WhitelistIndex.put(player);
+
+        return player;
+    }
+
+    /**
+     * Gets players by unique ids with single query.
+     *
+     * @param   uuids   Players unique ids.
+     * @return found players, ids without record are skipped.
+     * @throws SQLException if database is unavailable.
+     */
+    public static List<WhitelistedPlayer> findByIds(final Collection<UUID> uuids)
+            throws SQLException {
+        if (uuids.isEmpty())
+            return Collections.emptyList();
+
+        List<WhitelistedPlayer> players = WhitelistedPlayer.database.execute(
+            () -> WhitelistedPlayer.dao.queryBuilder()
+                .where().in("uuid", uuids)
+                .query()
+        );
+        players.forEach(WhitelistIndex::put);
+
+        return players;
+    }
+
+    /**
+     * Moves record of player, who was added by name, to id
+     * which server gave him on login.
+     *
+     * @param   offlineId   Id which record has now.
+     * @param   uuid        Id given by server.
+     * @param   playerName  Name player logged in with.
+     * @return moved record or <tt>null</tt> if there's no record
+     *      with offline id or there is one with new id already.
+     * @throws SQLException if database is unavailable.
+     */
+    public static WhitelistedPlayer claim(
+        final UUID offlineId, final UUID uuid, final String playerName
+    ) throws SQLException {
+        WhitelistedPlayer player = WhitelistedPlayer.database.execute(() -> callInTransaction(
+            WhitelistedPlayer.dao.getConnectionSource(), () -> {
+                WhitelistedPlayer found = WhitelistedPlayer.dao.queryForId(offlineId);
+
+                if ((found == null) || WhitelistedPlayer.dao.idExists(uuid))
+                    return null;
+
+                WhitelistedPlayer.dao.updateId(found, uuid);
+                found.uuid = uuid;
+                found.setName(playerName);
+                WhitelistedPlayer.dao.update(found);
+
+                return found;
+            }
+        ));
+
+        if (player != null) {
+            WhitelistIndex.remove(offlineId);
+            WhitelistIndex.put(player);
+        }
+
+        return player;
+    }
+
+    public static boolean isPlayerExists(final String playerName) {
+        try {
+            return WhitelistedPlayer.database.execute(
+                () -> WhitelistedPlayer.dao.queryBuilder()
+                    .where().eq("name_lower", new SelectArg(lower(playerName)))
+                    .countOf()
+            ) > 0;
+        } catch (SQLException ex) {
+            ex.printStackTrace();
             return false;
         }
     }
 
     public boolean create() {
         try {
-            WhitelistedPlayer.dao.create(this);
+            WhitelistedPlayer.database.execute(() -> WhitelistedPlayer.dao.create(this));
         } catch (SQLException ex) {
-            if (TemporalWhitelistPlugin.reload())
-                return create();
-
             ex.printStackTrace();
             return false;
         }
 
+        WhitelistIndex.put(this);
+
         return true;
     }
 
     public boolean save() {
         try {
-            WhitelistedPlayer.dao.update(this);
+            WhitelistedPlayer.database.execute(() -> WhitelistedPlayer.dao.update(this));
         } catch (SQLException ex) {
-            if (TemporalWhitelistPlugin.reload())
-                return save();
-
             ex.printStackTrace();
             return false;
         }
 
+        WhitelistIndex.put(this);
+
         return true;
     }
 
     public boolean reload() {
         try {
-            WhitelistedPlayer.dao.refresh(this);
+            WhitelistedPlayer.database.execute(() -> WhitelistedPlayer.dao.refresh(this));
         } catch (SQLException ex) {
-            if (TemporalWhitelistPlugin.reload())
-                return reload();
-
             ex.printStackTrace();
             return false;
         }
 
+        WhitelistIndex.put(this);
+
         return true;
     }
 
     public boolean delete() {
         try {
-            WhitelistedPlayer.dao.delete(this);
+            WhitelistedPlayer.database.execute(() -> WhitelistedPlayer.dao.delete(this));
         } catch (SQLException ex) {
-            if (TemporalWhitelistPlugin.reload())
-                return delete();
-
             ex.printStackTrace();
             return false;
         }
 
+        WhitelistIndex.remove(uuid);
+
         return true;
     }
 
+    /** @return the uuid */
+    public UUID getUniqueId() {
+        return uuid;
+    }
+
     /** @return the name */
     public String getName() {
         return name;
     }
 
-    /** Sets name */
+    /** Sets name and its lowercase form */
     public void setName(final String name) {
         this.name = name;
+        nameLower = (name == null) ? null : lower(name);
+    }
+
+    /** @return the nameLower */
+    String getNameLower() {
+        return nameLower;
     }
 
     /** @return the isWhitelisted */
@@ -194,18 +629,23 @@ public final class WhitelistedPlayer {
         this.isWhitelisted = isWhitelisted;
     }
 
-    /** @return the until */
-    public Date getUntil() {
+    /** @return expiry time in epoch millis or <tt>0</tt> if never. */
+    public long getUntil() {
         return until;
     }
 
-    /** Sets until */
-    public void setUntil(final Date until) {
+    /** Sets expiry time in epoch millis, <tt>0</tt> means never. */
+    public void setUntil(final long until) {
         this.until = until;
     }
 
     /** @return the dao */
-    protected static Dao<WhitelistedPlayer, String> getDao() {
+    protected static Dao<WhitelistedPlayer, UUID> getDao() {
         return WhitelistedPlayer.dao;
     }
+
+    /** @return the database */
+    protected static DatabaseManager getDatabase() {
+        return WhitelistedPlayer.database;
+    }
 }
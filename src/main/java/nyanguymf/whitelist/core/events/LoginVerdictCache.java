@@ -0,0 +1,107 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.events;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nyanguymf.whitelist.core.db.WhitelistIndex.Verdict;
+
+/**
+ * Short-lived per-player storage of verdicts resolved
+ * during asynchronous pre-login.
+ * <p>
+ * Cache is bounded: when it's full, expired verdicts
+ * are evicted and if there is still no space, new
+ * verdict isn't stored at all.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+final class LoginVerdictCache {
+    private final Map<UUID, CachedVerdict> verdicts = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttl;
+
+    /**
+     * @param   maxSize     Max amount of stored verdicts.
+     * @param   ttl         Time in milliseconds for which
+     *      verdict remains valid.
+     */
+    LoginVerdictCache(final int maxSize, final long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Stores verdict for given player id.
+     *
+     * @return <tt>false</tt> if cache is full.
+     */
+    boolean put(final UUID uuid, final Verdict verdict, final long now) {
+        if ((verdicts.size() >= maxSize) && !verdicts.containsKey(uuid)) {
+            evictExpired(now);
+
+            if (verdicts.size() >= maxSize)
+                return false;
+        }
+
+        verdicts.put(uuid, new CachedVerdict(verdict, now + ttl));
+        return true;
+    }
+
+    /**
+     * Removes and returns verdict for given player id.
+     * <p>
+     * Returns <tt>null</tt> if there is no verdict or it's expired.
+     */
+    Verdict take(final UUID uuid, final long now) {
+        CachedVerdict cached = verdicts.remove(uuid);
+
+        if ((cached == null) || (cached.expiresAt < now))
+            return null;
+
+        return cached.verdict;
+    }
+
+    private void evictExpired(final long now) {
+        Iterator<CachedVerdict> iterator = verdicts.values().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt < now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class CachedVerdict {
+        private final Verdict verdict;
+        private final long expiresAt;
+
+        private CachedVerdict(final Verdict verdict, final long expiresAt) {
+            this.verdict = verdict;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
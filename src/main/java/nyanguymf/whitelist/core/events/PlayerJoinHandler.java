@@ -22,27 +22,106 @@
  */
 package nyanguymf.whitelist.core.events;
 
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.isPlayerExists;
-import static nyanguymf.whitelist.core.db.WhitelistedPlayer.playerByName;
+import static java.lang.System.currentTimeMillis;
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.findById;
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.findByName;
+import static nyanguymf.whitelist.core.db.WhitelistedPlayer.offlineId;
 
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent.Result;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import nyanguymf.whitelist.commons.db.DatabaseManager;
 import nyanguymf.whitelist.core.MessagesManager;
+import nyanguymf.whitelist.core.PluginSettings;
+import nyanguymf.whitelist.core.WhitelistManager;
+import nyanguymf.whitelist.core.db.UnknownPlayersWriter;
+import nyanguymf.whitelist.core.db.WhitelistFilter;
+import nyanguymf.whitelist.core.db.WhitelistIndex;
+import nyanguymf.whitelist.core.db.WhitelistIndex.Verdict;
 import nyanguymf.whitelist.core.db.WhitelistedPlayer;
 
-/** @author NyanGuyMF - Vasiliy Bely */
-public final class PlayerJoinHandler implements Listener {
+/**
+ * Checks joining players.
+ * <p>
+ * Verdict is resolved on {@link AsyncPlayerPreLoginEvent} off the
+ * main thread and stored in {@link LoginVerdictCache}, so
+ * {@link PlayerLoginEvent} handler only reads it. Players are
+ * checked by id which server gives them.
+ * <p>
+ * Players who were added by name before their first login
+ * have offline id, their records are moved to server's id
+ * when they log in. Renamed players get their new names
+ * stored on login too.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class PlayerJoinHandler implements Listener, Closeable {
     private MessagesManager messages;
+    private WhitelistManager whManager;
+    private UnknownPlayersWriter unknownPlayers;
+    private DatabaseManager database;
+    private LoginVerdictCache verdicts;
+    private ExecutorService databaseExecutor;
 
-    public PlayerJoinHandler(final MessagesManager messages) {
+    public PlayerJoinHandler(
+        final MessagesManager messages, final WhitelistManager whManager,
+        final UnknownPlayersWriter unknownPlayers, final DatabaseManager database
+    ) {
         this.messages = messages;
+        this.whManager = whManager;
+        this.unknownPlayers = unknownPlayers;
+        this.database = database;
+    }
+
+    @EventHandler(priority=EventPriority.LOWEST)
+    public void onPreLogin(final AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED)
+            return;
+
+        if (!whManager.isWhitelistEnabled())
+            return;
+
+        String playerName = event.getName();
+        UUID uuid = event.getUniqueId();
+        Verdict verdict = resolve(uuid, playerName);
+        WhitelistIndex.remember(playerName, uuid);
+
+        switch (verdict) {
+        case UNKNOWN:
+            unknownPlayers.offer(uuid, playerName);
+            break;
+        case EXPIRED:
+            revoke(uuid);
+            break;
+        default:
+            break;
+        }
+
+        if (isAllowed(verdict)) {
+            verdicts.put(uuid, verdict, currentTimeMillis());
+        } else {
+            // disallowed player never reaches login, so there's
+            // nothing to cache: it would only fill the cache up
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_WHITELIST, kickMessage());
+        }
     }
 
     @EventHandler(priority=EventPriority.LOWEST)
@@ -50,37 +129,183 @@ public final class PlayerJoinHandler implements Listener {
         if (event.getResult() != Result.ALLOWED)
             return;
 
-        if (!isPlayerExists(event.getPlayer().getName())) {
-            disallow(event);
-            new WhitelistedPlayer(event.getPlayer().getName()).create();
+        if (!whManager.isWhitelistEnabled())
             return;
+
+        UUID uuid = event.getPlayer().getUniqueId();
+        long now = currentTimeMillis();
+        Verdict verdict = verdicts.take(uuid, now);
+
+        if (verdict == null) {
+            // pre-login verdict is missing or outdated:
+            // use index only, main thread mustn't wait for database
+            verdict = WhitelistIndex.isLoaded()
+                    ? WhitelistIndex.verdict(uuid, now)
+                    : null;
         }
 
-        WhitelistedPlayer player = playerByName(event.getPlayer().getName());
+        if ((verdict == null) ? !PluginSettings.current().isFailOpen() : !isAllowed(verdict)) {
+            event.disallow(Result.KICK_WHITELIST, kickMessage());
+        }
+    }
 
-        if (!player.isWhitelisted()) {
-            disallow(event);
-            return;
+    /**
+     * Resolves verdict from index or, if index wasn't loaded,
+     * from database with configured timeout.
+     * <p>
+     * Players who are definitely not whitelisted according to
+     * {@link WhitelistFilter} are rejected without database query.
+     * <p>
+     * If database is unavailable, last known state of player
+     * is used.
+     */
+    private Verdict resolve(final UUID uuid, final String playerName) {
+        if (WhitelistIndex.isLoaded()) {
+            WhitelistIndex.Entry entry = WhitelistIndex.entry(uuid);
+
+            if (entry == null)
+                return claim(uuid, playerName);
+
+            if (!entry.getName().equals(playerName)) {
+                rename(uuid, playerName);
+            }
+
+            return WhitelistIndex.verdict(uuid, currentTimeMillis());
         }
 
-        if (player.getUntil() != null) {
-            if (player.getUntil().before(new Date())) {
-                disallow(event);
-                player.setWhitelisted(false);
-                player.setUntil(null);
-                player.save();
+        // index lookup is as cheap as filter, so it's used
+        // only to save database queries
+        if (!WhitelistFilter.mightBeWhitelisted(uuid, playerName))
+            return Verdict.UNKNOWN;
+
+        if (database.isCircuitOpen())
+            return lastKnownVerdict(uuid);
+
+        Future<Verdict> future = databaseExecutor.submit(() -> verdictFromDatabase(uuid, playerName));
+
+        try {
+            return future.get(PluginSettings.current().getDatabaseTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ex) {
+            future.cancel(true);
+            System.err.printf("Unable to check %s in database in time.\n", playerName);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+
+        return lastKnownVerdict(uuid);
+    }
+
+    /**
+     * Moves record, which was added by given name before player's
+     * first login, to his id in background.
+     *
+     * @return verdict for that record or {@link Verdict#UNKNOWN}
+     *      if there's no such record.
+     */
+    private Verdict claim(final UUID uuid, final String playerName) {
+        UUID indexedId = WhitelistIndex.id(playerName);
+
+        // name may belong to other account, which was renamed:
+        // only record with id derived from name is claimable
+        if ((indexedId == null) || !indexedId.equals(offlineId(playerName)))
+            return Verdict.UNKNOWN;
+
+        databaseExecutor.execute(() -> {
+            try {
+                WhitelistedPlayer.claim(indexedId, uuid, playerName);
+            } catch (SQLException ex) {
+                // he will be able to claim it on next login
+                System.err.printf(
+                    "Unable to move %s to id %s: %s\n", playerName, uuid, ex.getLocalizedMessage()
+                );
+            }
+        });
+
+        return WhitelistIndex.verdict(indexedId, currentTimeMillis());
+    }
+
+    /** Stores new name of player in background. */
+    private void rename(final UUID uuid, final String playerName) {
+        databaseExecutor.execute(() -> {
+            try {
+                WhitelistedPlayer player = findById(uuid);
+
+                if (player != null) {
+                    player.setName(playerName);
+                    player.save();
+                }
+            } catch (SQLException ex) {
+                System.err.printf("Unable to rename %s: %s\n", playerName, ex.getLocalizedMessage());
+            }
+        });
+    }
+
+    /** Gets verdict from index entry or by fail policy if there isn't one. */
+    private Verdict lastKnownVerdict(final UUID uuid) {
+        if (WhitelistIndex.entry(uuid) != null)
+            return WhitelistIndex.verdict(uuid, currentTimeMillis());
+
+        return PluginSettings.current().isFailOpen() ? Verdict.ALLOWED : Verdict.NOT_WHITELISTED;
+    }
+
+    private Verdict verdictFromDatabase(final UUID uuid, final String playerName)
+            throws SQLException {
+        WhitelistedPlayer player = findById(uuid);
+
+        if (player == null) {
+            WhitelistedPlayer byName = findByName(playerName);
+
+            if ((byName != null) && byName.getUniqueId().equals(offlineId(playerName))) {
+                player = WhitelistedPlayer.claim(byName.getUniqueId(), uuid, playerName);
             }
         }
+
+        if (player == null)
+            return Verdict.UNKNOWN;
+
+        if (!player.isWhitelisted())
+            return Verdict.NOT_WHITELISTED;
+
+        if ((player.getUntil() != 0) && (player.getUntil() <= currentTimeMillis()))
+            return Verdict.EXPIRED;
+
+        return Verdict.ALLOWED;
     }
 
-    private void disallow(final PlayerLoginEvent event) {
-        event.disallow(
-            Result.KICK_WHITELIST,
-            messages.info("not-whitelisted").replace("\\n", "\n")
-        );
+    private boolean isAllowed(final Verdict verdict) {
+        return verdict == Verdict.ALLOWED;
+    }
+
+    private void revoke(final UUID uuid) {
+        WhitelistedPlayer.revokeExpired(Collections.singleton(uuid), new Date());
+    }
+
+    private String kickMessage() {
+        return messages.info("not-whitelisted");
     }
 
     public void register(final JavaPlugin plugin) {
+        FileConfiguration config = plugin.getConfig();
+
+        verdicts = new LoginVerdictCache(
+            config.getInt("login.verdict-cache-size", 1024),
+            config.getLong("login.verdict-ttl", 10_000)
+        );
+        databaseExecutor = Executors.newFixedThreadPool(
+            config.getInt("login.database-threads", 2), runnable -> {
+                Thread thread = new Thread(runnable, "TemporalWhitelist-Login");
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+
         plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
+
+    @Override public void close() {
+        if (databaseExecutor != null) {
+            databaseExecutor.shutdownNow();
+        }
+    }
 }
@@ -23,6 +23,9 @@
 package nyanguymf.whitelist.core.yaml;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import de.exlll.configlib.configs.yaml.BukkitYamlConfiguration;
 import nyanguymf.whitelist.commons.db.DatabaseConfiguration;
@@ -38,6 +41,22 @@ public final class YamlDatabaseConfiguration
     private String databaseName = "whitelist";
     private String host = "localhost";
     private int port = 3306;
+    private boolean poolEnabled = true;
+    private int poolMinSize = 1;
+    private int poolMaxSize = 10;
+    private String poolValidationQuery = "";
+    private long poolIdleTimeout = 600_000;
+    private long poolMaxLifetime = 1_800_000;
+    private long poolAcquireTimeout = 5_000;
+    private int retryAttempts = 3;
+    private long retryBaseDelay = 50;
+    private long retryMaxDelay = 1_000;
+    private int breakerThreshold = 5;
+    private long breakerOpenTime = 10_000;
+    private List<String> driverMirrors = new ArrayList<>(
+        Collections.singletonList("https://repo1.maven.org/maven2/")
+    );
+    private int driverDownloadTimeout = 10_000;
 
     public YamlDatabaseConfiguration(final Path path) {
         super(
@@ -106,4 +125,116 @@ public final class YamlDatabaseConfiguration
     public void setPassword(final String password) {
         this.password = password;
     }
+
+    @Override public boolean isPoolEnabled() {
+        return poolEnabled;
+    }
+
+    public void setPoolEnabled(final boolean poolEnabled) {
+        this.poolEnabled = poolEnabled;
+    }
+
+    @Override public int getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    public void setPoolMinSize(final int poolMinSize) {
+        this.poolMinSize = poolMinSize;
+    }
+
+    @Override public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public void setPoolMaxSize(final int poolMaxSize) {
+        this.poolMaxSize = poolMaxSize;
+    }
+
+    @Override public String getPoolValidationQuery() {
+        return poolValidationQuery;
+    }
+
+    public void setPoolValidationQuery(final String poolValidationQuery) {
+        this.poolValidationQuery = poolValidationQuery;
+    }
+
+    @Override public long getPoolIdleTimeout() {
+        return poolIdleTimeout;
+    }
+
+    public void setPoolIdleTimeout(final long poolIdleTimeout) {
+        this.poolIdleTimeout = poolIdleTimeout;
+    }
+
+    @Override public long getPoolMaxLifetime() {
+        return poolMaxLifetime;
+    }
+
+    public void setPoolMaxLifetime(final long poolMaxLifetime) {
+        this.poolMaxLifetime = poolMaxLifetime;
+    }
+
+    @Override public long getPoolAcquireTimeout() {
+        return poolAcquireTimeout;
+    }
+
+    public void setPoolAcquireTimeout(final long poolAcquireTimeout) {
+        this.poolAcquireTimeout = poolAcquireTimeout;
+    }
+
+    @Override public int getRetryAttempts() {
+        return retryAttempts;
+    }
+
+    public void setRetryAttempts(final int retryAttempts) {
+        this.retryAttempts = retryAttempts;
+    }
+
+    @Override public long getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    public void setRetryBaseDelay(final long retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+    }
+
+    @Override public long getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    public void setRetryMaxDelay(final long retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    @Override public int getBreakerThreshold() {
+        return breakerThreshold;
+    }
+
+    public void setBreakerThreshold(final int breakerThreshold) {
+        this.breakerThreshold = breakerThreshold;
+    }
+
+    @Override public long getBreakerOpenTime() {
+        return breakerOpenTime;
+    }
+
+    public void setBreakerOpenTime(final long breakerOpenTime) {
+        this.breakerOpenTime = breakerOpenTime;
+    }
+
+    @Override public List<String> getDriverMirrors() {
+        return driverMirrors;
+    }
+
+    public void setDriverMirrors(final List<String> driverMirrors) {
+        this.driverMirrors = driverMirrors;
+    }
+
+    @Override public int getDriverDownloadTimeout() {
+        return driverDownloadTimeout;
+    }
+
+    public void setDriverDownloadTimeout(final int driverDownloadTimeout) {
+        this.driverDownloadTimeout = driverDownloadTimeout;
+    }
 }
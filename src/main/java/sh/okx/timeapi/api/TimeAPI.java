@@ -22,6 +22,7 @@
  */
 package sh.okx.timeapi.api;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,13 +31,13 @@ import java.util.concurrent.TimeUnit;
  * @author okx-code
  */
 public final class TimeAPI {
-    private static long DAYS_IN_WEEK = 7;
-    private static long DAYS_IN_MONTH = 30;
-    private static long DAYS_IN_YEAR = 365;
+    static final long DAYS_IN_WEEK = 7;
+    static final long DAYS_IN_MONTH = 30;
+    static final long DAYS_IN_YEAR = 365;
 
     private long seconds;
 
-    public TimeAPI(final String time) {
+    public TimeAPI(final CharSequence time) {
         reparse(time);
     }
 
@@ -44,73 +45,26 @@ public final class TimeAPI {
         this.seconds = seconds;
     }
 
-    public TimeAPI reparse(final String time) {
-        seconds = 0;
-
-        TimeScanner scanner = new TimeScanner(time
-                .replace(" ", "")
-                .replace("and", "")
-                .replace(",", "")
-                .toLowerCase());
-
-        long next;
-        while(scanner.hasNext()) {
-            next = scanner.nextLong();
-            switch(scanner.nextString()) {
-                case "s":
-                case "sec":
-                case "secs":
-                case "second":
-                case "seconds":
-                    seconds += next;
-                    break;
-                case "m":
-                case "min":
-                case "mins":
-                case "minute":
-                case "minutes":
-                    seconds += TimeUnit.MINUTES.toSeconds(next);
-                    break;
-                case "h":
-                case "hr":
-                case "hrs":
-                case "hour":
-                case "hours":
-                    seconds += TimeUnit.HOURS.toSeconds(next);
-                    break;
-                case "d":
-                case "dy":
-                case "dys":
-                case "day":
-                case "days":
-                    seconds += TimeUnit.DAYS.toSeconds(next);
-                    break;
-                case "w":
-                case "week":
-                case "weeks":
-                    seconds += TimeUnit.DAYS.toSeconds(next * TimeAPI.DAYS_IN_WEEK);
-                    break;
-                case "mo":
-                case "mon":
-                case "mnth":
-                case "month":
-                case "months":
-                    seconds += TimeUnit.DAYS.toSeconds(next * TimeAPI.DAYS_IN_MONTH);
-                    break;
-                case "y":
-                case "yr":
-                case "yrs":
-                case "year":
-                case "years":
-                    seconds += TimeUnit.DAYS.toSeconds(next * TimeAPI.DAYS_IN_YEAR);
-                    break;
-                default:
-                    throw new IllegalArgumentException();
-            }
-        }
+    /**
+     * Parses given duration, ex. <tt>1d 12h</tt>.
+     *
+     * @throws IllegalArgumentException if duration is invalid.
+     * @see TimeScanner
+     */
+    public TimeAPI reparse(final CharSequence time) {
+        seconds = TimeScanner.parseSeconds(time);
         return this;
     }
 
+    /**
+     * Gets names of units which durations may contain.
+     *
+     * @return names of every unit, from shortest unit to
+     *      longest one, shortest name of unit first.
+     */
+    public static List<List<String>> getUnitNames() {
+        return TimeScanner.unitNames();
+    }
 
     public long getNanoseconds() {
         return TimeUnit.SECONDS.toNanos(seconds);
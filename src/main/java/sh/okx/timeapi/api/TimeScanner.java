@@ -22,39 +22,197 @@
  */
 package sh.okx.timeapi.api;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.function.Predicate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Single-pass parser of durations like <tt>1d 12h</tt>
+ * or <tt>2 weeks, 3 days and 4 hours</tt>.
+ * <p>
+ * Works directly over given {@link CharSequence}: numbers are
+ * accumulated arithmetically and units are matched with trie,
+ * so parsing doesn't allocate anything unless input is invalid.
+ * Spaces, commas and «and» between parts are ignored, units
+ * are case-insensitive.
+ * <p>
  * <a href="https://github.com/okx-code/Rankup3">Original source and copyrighter<a>
  *
  * @author okx-code
  */
 final class TimeScanner {
-    private char[] time;
-    private int index = 0;
+    private static final int ALPHABET = 26;
+    /** Trie nodes, root is 0. Child 0 means there is no child. */
+    private static final int[][] CHILDREN;
+    /** Seconds in unit which ends at node, 0 if node isn't end of unit. */
+    private static final long[] UNIT_SECONDS;
+    /** Seconds in unit followed by its names, shortest name first. */
+    private static final Object[][] UNITS = {
+        {TimeUnit.SECONDS.toSeconds(1), "s", "sec", "secs", "second", "seconds"},
+        {TimeUnit.MINUTES.toSeconds(1), "m", "min", "mins", "minute", "minutes"},
+        {TimeUnit.HOURS.toSeconds(1), "h", "hr", "hrs", "hour", "hours"},
+        {TimeUnit.DAYS.toSeconds(1), "d", "dy", "dys", "day", "days"},
+        {TimeUnit.DAYS.toSeconds(TimeAPI.DAYS_IN_WEEK), "w", "week", "weeks"},
+        {TimeUnit.DAYS.toSeconds(TimeAPI.DAYS_IN_MONTH), "mo", "mon", "mnth", "month", "months"},
+        {TimeUnit.DAYS.toSeconds(TimeAPI.DAYS_IN_YEAR), "y", "yr", "yrs", "year", "years"},
+    };
 
-    public TimeScanner(final String time) {
-        this.time = time.toCharArray();
+    static {
+        int[][] children = new int[128][];
+        long[] unitSeconds = new long[children.length];
+        children[0] = new int[ALPHABET];
+        int nodes = 1;
+
+        for (Object[] unit : UNITS) {
+            for (int alias = 1; alias < unit.length; alias++) {
+                int node = 0;
+
+                for (char letter : ((String) unit[alias]).toCharArray()) {
+                    if (children[node][letter - 'a'] == 0) {
+                        children[nodes] = new int[ALPHABET];
+                        children[node][letter - 'a'] = nodes++;
+                    }
+                    node = children[node][letter - 'a'];
+                }
+
+                unitSeconds[node] = (Long) unit[0];
+            }
+        }
+
+        CHILDREN = Arrays.copyOf(children, nodes);
+        UNIT_SECONDS = Arrays.copyOf(unitSeconds, nodes);
     }
 
-    public boolean hasNext() {
-        return index < time.length-1;
+    private TimeScanner() {}
+
+    /**
+     * Gets names of units from shortest unit to longest one.
+     *
+     * @return names of every unit, shortest name first.
+     */
+    static List<List<String>> unitNames() {
+        List<List<String>> names = new ArrayList<>(UNITS.length);
+
+        for (Object[] unit : UNITS) {
+            List<String> unitNames = new ArrayList<>(unit.length - 1);
+
+            for (int alias = 1; alias < unit.length; alias++) {
+                unitNames.add((String) unit[alias]);
+            }
+            names.add(Collections.unmodifiableList(unitNames));
+        }
+
+        return Collections.unmodifiableList(names);
     }
 
-    public long nextLong() {
-        return Long.parseLong(String.valueOf(next(Character::isDigit)));
+    /**
+     * Parses given duration.
+     * <p>
+     * Empty duration is 0 seconds.
+     *
+     * @param   time    Duration to parse.
+     * @return duration in seconds.
+     * @throws IllegalArgumentException if duration is invalid
+     *      or doesn't fit into <tt>long</tt>.
+     */
+    static long parseSeconds(final CharSequence time) throws IllegalArgumentException {
+        try {
+            return parse(time);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Duration is too long: " + time, ex);
+        }
     }
 
-    public String nextString() {
-        return String.valueOf(next(Character::isAlphabetic));
+    private static long parse(final CharSequence time) {
+        final int length = time.length();
+        long seconds = 0;
+        int index = skipSeparators(time, 0);
+
+        while (index < length) {
+            char next = time.charAt(index);
+
+            if (!isDigit(next))
+                throw invalid(time, index);
+
+            long amount = 0;
+            do {
+                amount = Math.addExact(Math.multiplyExact(amount, 10), next - '0');
+            } while ((++index < length) && isDigit(next = time.charAt(index)));
+
+            // old parser removed spaces and commas everywhere, so «1 d» is valid
+            while ((index < length) && isSeparator(time.charAt(index))) {
+                index++;
+            }
+
+            // longest unit which is prefix of remaining letters
+            int node = 0;
+            int unitEnd = -1;
+            long unitSeconds = 0;
+            for (int letterIndex = index; letterIndex < length; letterIndex++) {
+                int letter = letter(time.charAt(letterIndex));
+
+                if ((letter < 0) || ((node = CHILDREN[node][letter]) == 0))
+                    break;
+
+                if (UNIT_SECONDS[node] != 0) {
+                    unitSeconds = UNIT_SECONDS[node];
+                    unitEnd = letterIndex + 1;
+                }
+            }
+
+            if (unitEnd == -1)
+                throw invalid(time, index);
+
+            seconds = Math.addExact(seconds, Math.multiplyExact(amount, unitSeconds));
+            index = skipSeparators(time, unitEnd);
+        }
+
+        return seconds;
     }
 
-    private char[] next(final Predicate<Character> whichSatisfies) {
-        int startIndex = index;
-        while(++index < time.length && whichSatisfies.test(time[index])) {
+    /** Skips spaces, commas and «and» starting from given index. */
+    private static int skipSeparators(final CharSequence time, int index) {
+        final int length = time.length();
 
+        while (index < length) {
+            if (isSeparator(time.charAt(index))) {
+                index++;
+            } else if ((index + 2 < length)
+                    && (letter(time.charAt(index)) == 'a' - 'a')
+                    && (letter(time.charAt(index + 1)) == 'n' - 'a')
+                    && (letter(time.charAt(index + 2)) == 'd' - 'a')) {
+                index += 3;
+            } else {
+                break;
+            }
         }
-        return Arrays.copyOfRange(time, startIndex, index);
+
+        return index;
+    }
+
+    private static boolean isDigit(final char character) {
+        return (character >= '0') && (character <= '9');
+    }
+
+    private static boolean isSeparator(final char character) {
+        return (character == ' ') || (character == ',');
+    }
+
+    /** Gets index of latin letter in alphabet ignoring case, -1 if it isn't latin letter. */
+    private static int letter(final char character) {
+        if ((character >= 'a') && (character <= 'z'))
+            return character - 'a';
+        if ((character >= 'A') && (character <= 'Z'))
+            return character - 'A';
+
+        return -1;
+    }
+
+    private static IllegalArgumentException invalid(final CharSequence time, final int index) {
+        return new IllegalArgumentException(
+            "Invalid duration at position " + index + ": " + time
+        );
     }
 }
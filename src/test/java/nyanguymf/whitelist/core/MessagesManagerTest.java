@@ -0,0 +1,90 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Loading of messages files written by older
+ * versions of plug-in.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class MessagesManagerTest {
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Writes messages file without messages added later. */
+    private File oldFile(final String lang) throws IOException {
+        File file = new File(folder.getRoot(), "messages_" + lang + ".yml");
+        Files.write(file.toPath(), Arrays.asList(
+            "info:",
+            "  'true': '&2yes'",
+            "error:",
+            "  player-doesnt-exists: '&4No {0}'"
+        ), UTF_8);
+        return file;
+    }
+
+    @Test public void keepsLoadedMessages() throws IOException {
+        oldFile("en");
+        MessagesManager messages = MessagesManager.getInstance(folder.getRoot(), "en");
+
+        assertEquals("\u00a72yes", messages.info("true"));
+        assertEquals("\u00a74No Steve", messages.error("player-doesnt-exists", "Steve"));
+    }
+
+    @Test public void addsMissingMessages() throws IOException {
+        File file = oldFile("en");
+        MessagesManager messages = MessagesManager.getInstance(folder.getRoot(), "en");
+
+        assertEquals("\u00a7apermanent", messages.info("list-permanent"));
+        assertEquals(
+            "\u00a7cInvalid player name: \u00a76Steve\u00a7c.",
+            messages.error("invalid-player-name", "Steve")
+        );
+        assertNotNull(messages.usage("whitelist", "list"));
+        assertTrue(new String(Files.readAllBytes(file.toPath()), UTF_8).contains("list-permanent"));
+    }
+
+    @Test public void addsMissingMessagesOnReload() throws IOException {
+        MessagesManager messages = MessagesManager.getInstance(folder.getRoot(), "en");
+        oldFile("ru");
+
+        assertTrue(messages.reload("ru"));
+        assertEquals("\u00a72yes", messages.info("true"));
+        assertEquals("\u00a7apermanent", messages.info("list-permanent"));
+        assertNotNull(messages.usage("whitelist", "list"));
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.commands;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import nyanguymf.whitelist.commons.commands.Arguments;
+
+/**
+ * Page number detection of <tt>/wh list</tt> arguments.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class ListCommandTest {
+    @Test public void noArguments() {
+        assertFalse(ListCommand.hasPage(Arguments.of()));
+    }
+
+    @Test public void pageOnly() {
+        assertTrue(ListCommand.hasPage(Arguments.of("2")));
+    }
+
+    @Test public void permanentWithPage() {
+        assertFalse(ListCommand.hasPage(Arguments.of("permanent")));
+        assertTrue(ListCommand.hasPage(Arguments.of("permanent", "3")));
+    }
+
+    @Test public void expiringWithoutPage() {
+        assertFalse(ListCommand.hasPage(Arguments.of("expiring", "7d")));
+        assertFalse(ListCommand.hasPage(Arguments.of("expiring", "30")));
+    }
+
+    @Test public void expiringWithPage() {
+        assertTrue(ListCommand.hasPage(Arguments.of("expiring", "7d", "2")));
+    }
+
+    @Test public void durationIsNotPage() {
+        assertFalse(PageCommand.isPage("7d"));
+        assertFalse(PageCommand.isPage("1h30m"));
+        assertTrue(PageCommand.isPage("12"));
+    }
+}
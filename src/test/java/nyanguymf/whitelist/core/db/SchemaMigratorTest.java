@@ -0,0 +1,151 @@
+/**
+ * This file is the part of TemporalWhitelist plug-in.
+ *
+ * Copyright (c) 2019 Vasiliy (NyanGuyMF)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package nyanguymf.whitelist.core.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+
+/**
+ * Migration of <tt>players</tt> table created by first
+ * versions of plug-in, where <tt>until</tt> is date string.
+ *
+ * @author NyanGuyMF - Vasiliy Bely
+ */
+public final class SchemaMigratorTest {
+    /** More than one chunk of migration. */
+    private static final int PLAYERS = 2_500;
+    private static final String UNTIL = "2030-01-02 03:04:05.000123";
+    private static int databases;
+    private JdbcConnectionSource source;
+    private Dao<WhitelistedPlayer, UUID> dao;
+    private List<String> console;
+
+    @Before public void openDatabase() throws SQLException {
+        System.setProperty("com.j256.ormlite.logger.level", "ERROR");
+        source = new JdbcConnectionSource("jdbc:h2:mem:migration" + (++databases));
+        dao = DaoManager.createDao(source, WhitelistedPlayer.class);
+        console = new ArrayList<>();
+
+        // the way ORMLite created it for DATE_STRING field
+        dao.executeRaw(
+            "CREATE TABLE `players` (`name` VARCHAR(255) , `is_whitelisted` TINYINT(1) NOT NULL ,"
+            + " `until` VARCHAR(50) , PRIMARY KEY (`name`) )"
+        );
+        dao.executeRaw(
+            "INSERT INTO `players` SELECT CONCAT('Player', X), MOD(X, 3) <> 0,"
+            + " CASEWHEN(MOD(X, 2) = 0, NULL, '" + UNTIL + "')"
+            + " FROM SYSTEM_RANGE(0, " + (PLAYERS - 1) + ")"
+        );
+        dao.executeRaw("INSERT INTO `players` VALUES ('Broken', TRUE, 'someday')");
+    }
+
+    @After public void closeDatabase() throws IOException {
+        DaoManager.clearCache();
+        source.close();
+    }
+
+    @Test public void convertsStringDates() throws Exception {
+        assertTrue(new SchemaMigrator(dao, console::add).migrate());
+
+        long until = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSSSS").parse(UNTIL).getTime();
+
+        for (int i : new int[] {0, 1, 2, 3, 999, 1000, 1001, PLAYERS - 1}) {
+            WhitelistedPlayer player = dao.queryForId(WhitelistedPlayer.offlineId("Player" + i));
+
+            assertEquals("Player" + i, player.getName());
+            assertEquals((i % 2 == 0) ? 0 : until, player.getUntil());
+            assertEquals(i % 3 != 0, player.isWhitelisted());
+        }
+
+        assertEquals(PLAYERS + 1, dao.countOf());
+        assertEquals(
+            PLAYERS / 2,
+            dao.queryBuilder().where().eq("until", until).countOf()
+        );
+    }
+
+    @Test public void revokesUnparsableDates() throws Exception {
+        assertTrue(new SchemaMigrator(dao, console::add).migrate());
+
+        WhitelistedPlayer player = dao.queryForId(WhitelistedPlayer.offlineId("Broken"));
+
+        assertFalse(player.isWhitelisted());
+        assertEquals(0, player.getUntil());
+    }
+
+    @Test public void fillsIdsAndLowerCaseNames() throws Exception {
+        assertTrue(new SchemaMigrator(dao, console::add).migrate());
+
+        List<String[]> rows = dao.queryRaw(
+            "SELECT `name`, `uuid`, `name_lower` FROM `players`"
+        ).getResults();
+
+        assertEquals(PLAYERS + 1, rows.size());
+        for (String[] row : rows) {
+            assertEquals(WhitelistedPlayer.offlineId(row[0]).toString(), row[1]);
+            assertEquals(row[0].toLowerCase(), row[2]);
+        }
+
+        assertEquals(
+            WhitelistedPlayer.offlineId("Player7"),
+            dao.queryBuilder().where().eq("name_lower", "player7").queryForFirst().getUniqueId()
+        );
+    }
+
+    @Test public void recordsLatestVersion() throws Exception {
+        assertTrue(new SchemaMigrator(dao, console::add).migrate());
+
+        assertEquals(
+            SchemaMigrator.LATEST_VERSION,
+            dao.queryRawValue("SELECT `version` FROM `schema_version`")
+        );
+        // nothing left to migrate
+        console.clear();
+        assertTrue(new SchemaMigrator(dao, console::add).migrate());
+        assertTrue(console.isEmpty());
+    }
+
+    @Test public void migratesIndexedDateStrings() throws Exception {
+        // until was indexed before it was converted
+        dao.executeRaw("CREATE INDEX `players_until_idx` ON `players` (`until`)");
+
+        assertTrue(new SchemaMigrator(dao, console::add).migrate());
+        assertEquals(PLAYERS + 1, dao.countOf());
+    }
+}